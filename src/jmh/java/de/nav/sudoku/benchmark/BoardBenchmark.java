@@ -0,0 +1,64 @@
+package de.nav.sudoku.benchmark;
+
+import de.nav.sudoku.solving.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the moves of an interactive {@link Board}, on boards loaded once per Sudoku of the corpus
+ * and then only changed by the benchmarks themselves, each of which leaves its board as it found it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({Corpus.EASY, Corpus.HARD})
+    public String corpus;
+
+    private Board[] boards;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        int[][] sudokus = Corpus.load(corpus);
+        boards = new Board[sudokus.length];
+        for (int i = 0; i < sudokus.length; i++)
+            boards[i] = new Board(9, sudokus[i]);
+    }
+
+    /**
+     * Places a hinted number and takes it back.
+     */
+    @Benchmark
+    public boolean placeAndUndo() {
+        Board board = nextBoard();
+        Board.Hint hint = board.nextHint();
+        return board.place(hint.getRow(), hint.getColumn(), hint.getNumber()) && board.undo();
+    }
+
+    @Benchmark
+    public Board.Hint nextHint() {
+        return nextBoard().nextHint();
+    }
+
+    private Board nextBoard() {
+        Board board = boards[next];
+        next = (next + 1) % boards.length;
+        return board;
+    }
+}
@@ -0,0 +1,115 @@
+package de.nav.sudoku.benchmark;
+
+import de.nav.sudoku.caching.CachingSolver;
+import de.nav.sudoku.caching.SolutionCache;
+import de.nav.sudoku.solving.AdaptiveSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a cache hit, one Sudoku per operation. For {@link #hit()}, each is equivalent to one of the corpus but
+ * transformed at random, so every lookup has to go through the canonical form. {@link #repeated()} looks the
+ * Sudokus of the corpus up as they are, and {@link #uncached()} solves the transformed ones without the cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+
+    @Param({Corpus.EASY, Corpus.HARD, Corpus.SEVENTEEN})
+    public String corpus;
+
+    private int[][] originals;
+    private int[][] sudokus;
+    private final int[] solution = new int[81];
+    private AdaptiveSolver uncached;
+    private CachingSolver solver;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        originals = Corpus.load(corpus);
+        uncached = new AdaptiveSolver();
+        solver = new CachingSolver(new AdaptiveSolver(), new SolutionCache(originals.length));
+        for (int[] sudoku : originals)
+            solver.solve(sudoku, solution);
+
+        Random random = new Random(42);
+        sudokus = new int[4 * originals.length][];
+        for (int i = 0; i < sudokus.length; i++)
+            sudokus[i] = transform(originals[i % originals.length], random);
+    }
+
+    @Benchmark
+    public boolean hit() {
+        int[] sudoku = sudokus[next];
+        next = (next + 1) % sudokus.length;
+        return solver.solve(sudoku, solution);
+    }
+
+    @Benchmark
+    public boolean repeated() {
+        int[] sudoku = originals[next % originals.length];
+        next = (next + 1) % sudokus.length;
+        return solver.solve(sudoku, solution);
+    }
+
+    @Benchmark
+    public boolean uncached() {
+        int[] sudoku = sudokus[next];
+        next = (next + 1) % sudokus.length;
+        return uncached.solve(sudoku, solution);
+    }
+
+    /**
+     * Transposes at random, then permutes the bands, the rows within each band and the numbers.
+     */
+    private static int[] transform(int[] sudoku, Random random) {
+        int[] rowOrder = new int[9];
+        int[] bands = shuffled(3, random);
+        for (int band = 0; band < 3; band++) {
+            int[] rows = shuffled(3, random);
+            for (int row = 0; row < 3; row++)
+                rowOrder[band * 3 + row] = bands[band] * 3 + rows[row];
+        }
+        int[] numbers = shuffled(9, random);
+        boolean transposed = random.nextBoolean();
+
+        int[] transformed = new int[81];
+        for (int row = 0; row < 9; row++)
+            for (int col = 0; col < 9; col++) {
+                int source = transposed ? col * 9 + rowOrder[row] : rowOrder[row] * 9 + col;
+                int number = sudoku[source];
+                transformed[row * 9 + col] = number == 0 ? 0 : numbers[number - 1] + 1;
+            }
+        return transformed;
+    }
+
+    private static int[] shuffled(int count, Random random) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++)
+            values[i] = i;
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+        return values;
+    }
+}
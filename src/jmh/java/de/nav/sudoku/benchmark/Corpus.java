@@ -0,0 +1,59 @@
+package de.nav.sudoku.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The checked-in Sudokus the benchmarks run on, one file per corpus in the one-per-line text format:
+ * <ul>
+ *     <li>easy: 34 givens, unique solution</li>
+ *     <li>hard: well-known hard Sudokus and minimal Sudokus that take the most search</li>
+ *     <li>seventeen: Sudokus with the minimal number of 17 givens</li>
+ * </ul>
+ */
+public class Corpus {
+
+    public static final String EASY = "easy";
+    public static final String HARD = "hard";
+    public static final String SEVENTEEN = "seventeen";
+
+    /**
+     * @return the Sudokus of the corpus, each as 81 fields row by row
+     */
+    public static int[][] load(String name) {
+        String resource = "/corpus/" + name + ".txt";
+        try (InputStream in = Corpus.class.getResourceAsStream(resource)) {
+            if (in == null)
+                throw new IllegalArgumentException("Unknown corpus " + name);
+            List<int[]> sudokus = new ArrayList<>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank())
+                    continue;
+                int[] sudoku = new int[81];
+                for (int field = 0; field < 81; field++) {
+                    char c = line.charAt(field);
+                    sudoku[field] = c == '.' ? 0 : c - '0';
+                }
+                sudokus.add(sudoku);
+            }
+            return sudokus.toArray(new int[0][]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static int[][] toTable(int[] sudoku) {
+        int[][] table = new int[9][9];
+        for (int row = 0; row < 9; row++)
+            System.arraycopy(sudoku, row * 9, table[row], 0, 9);
+        return table;
+    }
+}
@@ -0,0 +1,73 @@
+package de.nav.sudoku.benchmark;
+
+import de.nav.sudoku.batch.PackedPuzzleReader;
+import de.nav.sudoku.batch.PackedPuzzleWriter;
+import de.nav.sudoku.batch.PuzzleInput;
+import de.nav.sudoku.batch.PuzzleReader;
+import de.nav.sudoku.batch.PuzzleWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a file of Sudokus into the fields the solver takes, in the text format and in the packed format,
+ * per Sudoku. The file holds the hard corpus repeated up to {@value #COUNT} Sudokus and stays in the page cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+
+    private static final int COUNT = 100_000;
+
+    @Param({"text", "packed"})
+    public String format;
+
+    private Path file;
+    private final int[] fields = new int[81];
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] sudokus = Corpus.load(Corpus.HARD);
+        boolean packed = format.equals("packed");
+        file = Files.createTempFile("sudokus", packed ? ".sdkp" : ".txt");
+        try (var writer = packed ? PackedPuzzleWriter.open(file) : PuzzleWriter.open(file)) {
+            for (int i = 0; i < COUNT; i++)
+                writer.write(sudokus[i % sudokus.length]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int read() throws IOException {
+        int sum = 0;
+        try (PuzzleInput reader = format.equals("packed") ? PackedPuzzleReader.open(file) : PuzzleReader.open(file)) {
+            while (reader.next(fields) != PuzzleInput.END_OF_INPUT)
+                sum += fields[80];
+        }
+        return sum;
+    }
+}
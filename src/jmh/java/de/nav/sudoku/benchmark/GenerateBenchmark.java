@@ -0,0 +1,50 @@
+package de.nav.sudoku.benchmark;
+
+import de.nav.sudoku.generating.PuzzleGenerator;
+import de.nav.sudoku.generating.Symmetry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of generating 9 x 9 Sudokus on one thread, one Sudoku with a unique solution per operation.
+ * With 0 clues, as many givens as possible are removed, which always succeeds on the first grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerateBenchmark {
+
+    @Param({"0", "28"})
+    public int clues;
+
+    @Param({"NONE", "ROTATIONAL"})
+    public Symmetry symmetry;
+
+    private PuzzleGenerator generator;
+    private final int[] puzzle = new int[81];
+
+    @Setup
+    public void setUp() {
+        generator = new PuzzleGenerator(9, clues, symmetry, 42);
+    }
+
+    @Benchmark
+    public int[] generate() {
+        generator.generate(puzzle);
+        return puzzle;
+    }
+}
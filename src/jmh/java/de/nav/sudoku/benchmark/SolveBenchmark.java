@@ -0,0 +1,75 @@
+package de.nav.sudoku.benchmark;
+
+import de.nav.sudoku.solving.AdaptiveSolver;
+import de.nav.sudoku.solving.DancingLinksSolver;
+import de.nav.sudoku.solving.SolveListener;
+import de.nav.sudoku.solving.Solver;
+import de.nav.sudoku.solving.SudokuSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end throughput of solving with each engine, one Sudoku of the corpus per operation, cycling through the corpus.
+ * The logic engine runs once with its default stages and once without any, to show how much search they save.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolveBenchmark {
+
+    @Param({Corpus.EASY, Corpus.HARD, Corpus.SEVENTEEN})
+    public String corpus;
+
+    @Param({"logic", "logicWithoutStages", "exactCover", "adaptive"})
+    public String engine;
+
+    private int[][] sudokus;
+    private int[][][] tables;
+    private final int[] solution = new int[81];
+    private Solver solver;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        solver = switch (engine) {
+            case "logic" -> new SudokuSolver();
+            case "logicWithoutStages" -> new SudokuSolver(9, null, 0, SolveListener.NONE, List.of());
+            case "exactCover" -> new DancingLinksSolver();
+            case "adaptive" -> new AdaptiveSolver();
+            default -> throw new IllegalArgumentException("Unknown engine " + engine);
+        };
+        sudokus = Corpus.load(corpus);
+        tables = new int[sudokus.length][][];
+        for (int i = 0; i < sudokus.length; i++)
+            tables[i] = Corpus.toTable(sudokus[i]);
+    }
+
+    @Benchmark
+    public boolean solveFields() {
+        int[] sudoku = sudokus[next];
+        next = (next + 1) % sudokus.length;
+        return solver.solve(sudoku, solution);
+    }
+
+    @Benchmark
+    public int[][] solveTable() {
+        int[][] table = tables[next];
+        next = (next + 1) % tables.length;
+        return solver.solve(table);
+    }
+}
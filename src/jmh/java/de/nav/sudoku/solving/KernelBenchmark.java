@@ -0,0 +1,114 @@
+package de.nav.sudoku.solving;
+
+import de.nav.sudoku.benchmark.Corpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scalar and the vector {@link GridKernel} side by side, on the freshly loaded Sudokus of the hard corpus
+ * and on their solutions. A fork always gets the Vector API module, so both kernels run in the same setup.
+ * The vector kernel needs a build with the vector profile, so it only runs when asked for with
+ * {@code -p kernel=scalar,vector}, which the build passes when that profile is active.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class KernelBenchmark {
+
+    @Param({"scalar"})
+    public String kernel;
+
+    @Param({"9", "25"})
+    public int size;
+
+    private GridKernel gridKernel;
+    private SudokuLayout layout;
+    private int[][] solutions;
+    private int[][] loadedSolutions;
+    private int[][] loadedMetaValues;
+    private int[] metaValues;
+    private int[] singles;
+    private int next;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        gridKernel = kernel.equals("vector") ? vectorKernel() : new ScalarGridKernel();
+        layout = SudokuLayout.ofSize(size);
+        int[][] sudokus = size == 9 ? Corpus.load(Corpus.HARD) : new int[][]{new int[layout.fieldCount]};
+        SudokuSolver solver = new SudokuSolver(size);
+        solutions = new int[sudokus.length][layout.fieldCount];
+        loadedSolutions = new int[sudokus.length][];
+        loadedMetaValues = new int[sudokus.length][];
+        for (int i = 0; i < sudokus.length; i++) {
+            if (!solver.solve(sudokus[i], solutions[i]))
+                throw new IllegalStateException("Corpus Sudoku " + i + " has no solution");
+            solver.initialize(sudokus[i]);
+            loadedSolutions[i] = solver.state.solution.clone();
+            loadedMetaValues[i] = solver.state.metaValues.clone();
+        }
+        metaValues = new int[layout.fieldCount];
+        singles = new int[layout.fieldCount];
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return gridKernel.isValid(layout, solutions[advance()]);
+    }
+
+    @Benchmark
+    public boolean isSolved() {
+        return gridKernel.isSolved(solutions[advance()]);
+    }
+
+    @Benchmark
+    public boolean hasNoDeadEnds() {
+        int i = advance();
+        return gridKernel.hasNoDeadEnds(loadedSolutions[i], loadedMetaValues[i]);
+    }
+
+    @Benchmark
+    public int collectSingles() {
+        int i = advance();
+        return gridKernel.collectSingles(loadedSolutions[i], loadedMetaValues[i], singles);
+    }
+
+    @Benchmark
+    public int[] removeBitsFromFields() {
+        int field = next;
+        next = (next + 1) % layout.fieldCount;
+        metaValues[field] = layout.allCandidates;
+        gridKernel.removeBitsFromFields(metaValues, layout.peers[field], 1 << field % size);
+        return metaValues;
+    }
+
+    /**
+     * Loaded by name, since the class is only there in builds with the vector profile.
+     */
+    private static GridKernel vectorKernel() throws ReflectiveOperationException {
+        try {
+            return (GridKernel) Class.forName("de.nav.sudoku.solving.VectorGridKernel").getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Build with -P vector to benchmark the vector kernel", e);
+        }
+    }
+
+    private int advance() {
+        int i = next % solutions.length;
+        next = i + 1;
+        return i;
+    }
+}
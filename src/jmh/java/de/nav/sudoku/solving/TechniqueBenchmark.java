@@ -0,0 +1,123 @@
+package de.nav.sudoku.solving;
+
+import de.nav.sudoku.benchmark.Corpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the single parts of the solver, each measured on a freshly loaded Sudoku of the corpus.
+ *
+ * Every operation includes loading the Sudoku, so {@link #initialize()} is the baseline to subtract
+ * from the others. {@link #propagate()} is one full logic pass up to the point where the solver
+ * would have to bifurcate. The stages are measured on a single run over the whole Sudoku each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TechniqueBenchmark {
+
+    @Param({Corpus.EASY, Corpus.HARD, Corpus.SEVENTEEN})
+    public String corpus;
+
+    private int[][] sudokus;
+    private final SudokuSolver solver = new SudokuSolver();
+    private final SudokuChecker sudokuChecker = new SudokuChecker();
+    private final PropagationStage pointing = PropagationStage.of(Technique.POINTING, SudokuLayout.NINE);
+    private final PropagationStage boxLineReduction = PropagationStage.of(Technique.BOX_LINE_REDUCTION, SudokuLayout.NINE);
+    private final PropagationStage xWing = PropagationStage.of(Technique.X_WING, SudokuLayout.NINE);
+    private final PropagationStage swordfish = PropagationStage.of(Technique.SWORDFISH, SudokuLayout.NINE);
+    private int next;
+
+    @Setup
+    public void setUp() {
+        sudokus = Corpus.load(corpus);
+    }
+
+    @Benchmark
+    public boolean initialize() {
+        return load();
+    }
+
+    @Benchmark
+    public boolean propagate() {
+        return load() && solver.propagate(0);
+    }
+
+    @Benchmark
+    public boolean singles() {
+        load();
+        while (solver.state.hasPendingSingles())
+            solver.solveSingle(solver.state.nextPendingSingle());
+        return solver.state.hasDeadEnd();
+    }
+
+    @Benchmark
+    public int nakedSubsets() {
+        load();
+        for (int[] group : solver.layout.groups)
+            solver.checkNakedSubsets(group);
+        return solver.state.mark();
+    }
+
+    @Benchmark
+    public int hiddenSubsets() {
+        load();
+        for (int[] group : solver.layout.groups)
+            solver.checkHiddenSubsets(group);
+        return solver.state.mark();
+    }
+
+    @Benchmark
+    public int pointing() {
+        load();
+        return pointing.apply(solver.state);
+    }
+
+    @Benchmark
+    public int boxLineReduction() {
+        load();
+        return boxLineReduction.apply(solver.state);
+    }
+
+    @Benchmark
+    public int xWing() {
+        load();
+        return xWing.apply(solver.state);
+    }
+
+    @Benchmark
+    public int swordfish() {
+        load();
+        return swordfish.apply(solver.state);
+    }
+
+    /**
+     * Search after the first logic pass, which is included and can be subtracted with {@link #propagate()}.
+     */
+    @Benchmark
+    public boolean bifurcate() {
+        return load()
+                && solver.propagate(0)
+                && (sudokuChecker.isSolved(solver.state) || solver.bifurcate(0));
+    }
+
+    private boolean load() {
+        int[] sudoku = sudokus[next];
+        next = (next + 1) % sudokus.length;
+        return solver.initialize(sudoku);
+    }
+}
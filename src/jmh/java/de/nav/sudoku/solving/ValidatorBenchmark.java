@@ -0,0 +1,68 @@
+package de.nav.sudoku.solving;
+
+import de.nav.sudoku.benchmark.Corpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link SolutionValidator} against the checks the solver makes with its {@link SudokuChecker}, on the
+ * Sudokus of the hard corpus and their solutions. The checker needs the grid in a {@link SudokuState},
+ * so copying it there is part of its cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ValidatorBenchmark {
+
+    private int[][] sudokus;
+    private int[][] solutions;
+    private SolutionValidator validator;
+    private SudokuChecker checker;
+    private SudokuState state;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        sudokus = Corpus.load(Corpus.HARD);
+        SudokuSolver solver = new SudokuSolver();
+        solutions = new int[sudokus.length][81];
+        for (int i = 0; i < sudokus.length; i++)
+            if (!solver.solve(sudokus[i], solutions[i]))
+                throw new IllegalStateException("Corpus Sudoku " + i + " has no solution");
+        validator = new SolutionValidator();
+        checker = new SudokuChecker();
+        state = new SudokuState(SudokuLayout.NINE);
+    }
+
+    @Benchmark
+    public int validator() {
+        int i = advance();
+        return validator.firstConflict(sudokus[i], solutions[i]);
+    }
+
+    @Benchmark
+    public boolean checker() {
+        int i = advance();
+        System.arraycopy(solutions[i], 0, state.solution, 0, 81);
+        return checker.isSolved(state) && checker.isValid(state) && checker.matchesWithInitialFields(sudokus[i], state);
+    }
+
+    private int advance() {
+        int i = next % sudokus.length;
+        next = i + 1;
+        return i;
+    }
+}
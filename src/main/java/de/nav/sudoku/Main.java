@@ -1,11 +1,67 @@
 package de.nav.sudoku;
 
+import de.nav.sudoku.batch.BatchSolver;
+import de.nav.sudoku.batch.BatchValidator;
+import de.nav.sudoku.batch.PuzzleConverter;
+import de.nav.sudoku.generating.BatchGenerator;
+import de.nav.sudoku.generating.Symmetry;
+import de.nav.sudoku.metrics.AggregatingSolveListener;
+import de.nav.sudoku.service.SolveServer;
+import de.nav.sudoku.service.SolveService;
 import de.nav.sudoku.solving.SudokuSolver;
 import de.nav.sudoku.solving.util.TableUtil;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
 public class Main {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            solveExample();
+        } else if ((args.length == 3 || args.length == 4) && args[0].equals("batch")) {
+            int threads = args.length == 4 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            AggregatingSolveListener statistics = new AggregatingSolveListener();
+            try (BatchSolver batchSolver = new BatchSolver(threads, 4 * threads, statistics)) {
+                System.err.println(batchSolver.solve(Path.of(args[1]), Path.of(args[2])));
+            }
+            System.err.println(statistics);
+        } else if (args.length >= 3 && args.length <= 6 && args[0].equals("generate")) {
+            int count = Integer.parseInt(args[2]);
+            int clues = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+            Symmetry symmetry = args.length > 4 ? Symmetry.valueOf(args[4].toUpperCase()) : Symmetry.NONE;
+            int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+            try (BatchGenerator generator = new BatchGenerator(threads, clues, symmetry)) {
+                System.err.println(generator.generate(count, Path.of(args[1])));
+            }
+        } else if (args.length == 3 && args[0].equals("convert")) {
+            System.err.println("Converted " + PuzzleConverter.convert(Path.of(args[1]), Path.of(args[2])) + " Sudokus");
+        } else if (args.length == 3 && args[0].equals("validate")) {
+            System.err.println(BatchValidator.validate(Path.of(args[1]), Path.of(args[2]), (index, field) ->
+                    System.out.println(index + (field == BatchValidator.MALFORMED ? " malformed"
+                            : field == BatchValidator.UNSOLVED ? " unsolved"
+                            : " conflict in row " + field / 9 + ", column " + field % 9))));
+        } else if (args.length >= 1 && args.length <= 5 && args[0].equals("serve")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            int queueCapacity = args.length > 3 ? Integer.parseInt(args[3]) : 1024;
+            long deadlineMillis = args.length > 4 ? Long.parseLong(args[4]) : 1000;
+            SolveService service = new SolveService(workers, queueCapacity, 64, deadlineMillis);
+            SolveServer server = new SolveServer(new InetSocketAddress("localhost", port), service, queueCapacity);
+            System.err.println("Serving on " + server.getAddress());
+        } else {
+            System.err.println("Usage: sudoku [batch <input file> <output file> [threads]]");
+            System.err.println("       sudoku generate <output file> <count> [clues] [none|rotational|mirror|diagonal] [threads]");
+            System.err.println("       sudoku convert <input file> <output file>");
+            System.err.println("       sudoku validate <sudoku file> <solution file>");
+            System.err.println("       sudoku serve [port] [workers] [queue capacity] [deadline in ms]");
+            System.err.println("Files named *.sdkp are read and written packed, all others one Sudoku per line.");
+            System.exit(1);
+        }
+    }
+
+    private static void solveExample() {
         int[][] sudoku =
                 {{0,7,0,0,0,0,4,0,5},
                         {0,0,0,0,0,1,0,0,6},
@@ -19,7 +75,7 @@ public class Main {
 
         SudokuSolver solver = new SudokuSolver();
 
-        int[][] solvedTable = solver.solve(sudoku, 0);
+        int[][] solvedTable = solver.solve(sudoku);
 
         if (solvedTable != null) {
             System.out.println("Found solution: ");
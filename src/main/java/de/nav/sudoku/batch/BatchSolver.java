@@ -0,0 +1,242 @@
+package de.nav.sudoku.batch;
+
+import de.nav.sudoku.metrics.LatencyHistogram;
+import de.nav.sudoku.solving.SolveListener;
+import de.nav.sudoku.solving.SudokuSolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Solves many Sudokus in a row, optionally spread over several threads.
+ *
+ * Sudokus are handed to the workers in chunks through a {@link ChunkPipeline}, which keeps the output in
+ * input order and reads at most {@code maxChunksInFlight} chunks ahead. Each worker thread keeps its own
+ * {@link SudokuSolver} and buffers for its whole life, so solving does not allocate per Sudoku.
+ *
+ * One instance runs one batch at a time. Call {@link #close()} to stop the worker threads.
+ */
+public class BatchSolver implements AutoCloseable {
+
+    private static final int CHUNK_SIZE = 256;
+
+    private static final byte PENDING = 0;
+    private static final byte SOLVED = 1;
+    private static final byte UNSOLVABLE = 2;
+    private static final byte MALFORMED = 3;
+
+    private final ChunkPipeline<Chunk> pipeline;
+    private final ThreadLocal<Worker> workers;
+
+    /**
+     * Creates a batch solver that solves on the calling thread.
+     */
+    public BatchSolver() {
+        this(1);
+    }
+
+    public BatchSolver(int threads) {
+        this(threads, 4 * threads);
+    }
+
+    /**
+     * @param threads           number of worker threads; with 1, all Sudokus are solved on the calling thread
+     * @param maxChunksInFlight number of chunks that may be read ahead of the oldest chunk not yet written
+     */
+    public BatchSolver(int threads, int maxChunksInFlight) {
+        this(threads, maxChunksInFlight, SolveListener.NONE);
+    }
+
+    /**
+     * @param listener shared by the solvers of all worker threads
+     */
+    public BatchSolver(int threads, int maxChunksInFlight, SolveListener listener) {
+        this.pipeline = new ChunkPipeline<>(threads, maxChunksInFlight, "sudoku-batch-worker");
+        this.workers = ThreadLocal.withInitial(() -> new Worker(listener));
+    }
+
+    /**
+     * Reads and writes the text format, or the packed format for files named {@code *.sdkp}.
+     */
+    public BatchReport solve(Path input, Path output) throws IOException {
+        try (PuzzleInput reader = PuzzleInput.open(input);
+             PuzzleOutput writer = PuzzleOutput.open(output)) {
+            return solve(reader, writer);
+        }
+    }
+
+    /**
+     * Writes one entry for every Sudoku read. Entries without a Sudoku, like empty lines, are skipped.
+     */
+    public BatchReport solve(PuzzleInput reader, PuzzleOutput writer) throws IOException {
+        BatchReport report = new BatchReport();
+        long start = System.nanoTime();
+        run((chunk, index) -> {
+            while (chunk.size < CHUNK_SIZE) {
+                int fieldCount = reader.next(chunk.sudokus, chunk.size * 81);
+                if (fieldCount == PuzzleInput.END_OF_INPUT)
+                    break;
+                if (fieldCount == PuzzleInput.NO_GRID)
+                    continue;
+                chunk.status[chunk.size++] = fieldCount == 81 ? PENDING : MALFORMED;
+            }
+            return chunk.size > 0;
+        }, chunk -> {
+            for (int i = 0; i < chunk.size; i++) {
+                switch (chunk.status[i]) {
+                    case SOLVED:
+                        report.solved++;
+                        report.latency.record(chunk.nanos[i]);
+                        writer.write(chunk.solution(i));
+                        break;
+                    case UNSOLVABLE:
+                        report.unsolvable++;
+                        report.latency.record(chunk.nanos[i]);
+                        writer.writeUnsolved();
+                        break;
+                    default:
+                        report.malformed++;
+                        writer.writeUnsolved();
+                }
+            }
+        });
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Solves all given Sudokus and hands their solutions to the consumer in the same order,
+     * null for those without a solution.
+     */
+    public void solveAll(Iterator<int[][]> sudokus, Consumer<int[][]> solutions) {
+        try {
+            run((chunk, index) -> {
+                while (chunk.size < CHUNK_SIZE && sudokus.hasNext()) {
+                    int[][] table = sudokus.next();
+                    for (int row = 0; row < 9; row++)
+                        System.arraycopy(table[row], 0, chunk.sudokus, chunk.size * 81 + row * 9, 9);
+                    chunk.status[chunk.size++] = PENDING;
+                }
+                return chunk.size > 0;
+            }, chunk -> {
+                for (int i = 0; i < chunk.size; i++) {
+                    if (chunk.status[i] != SOLVED) {
+                        solutions.accept(null);
+                        continue;
+                    }
+                    int[] solution = chunk.solution(i);
+                    int[][] table = new int[9][9];
+                    for (int row = 0; row < 9; row++)
+                        System.arraycopy(solution, row * 9, table[row], 0, 9);
+                    solutions.accept(table);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void solveAll(Stream<int[][]> sudokus, Consumer<int[][]> solutions) {
+        solveAll(sudokus.iterator(), solutions);
+    }
+
+    @Override
+    public void close() {
+        pipeline.close();
+    }
+
+    private void run(ChunkPipeline.Source<Chunk> source, ChunkPipeline.Sink<Chunk> sink) throws IOException {
+        pipeline.run(Chunk::new, (chunk, index) -> {
+            chunk.size = 0;
+            return source.fill(chunk, index);
+        }, this::solveChunk, sink);
+    }
+
+    private void solveChunk(Chunk chunk) {
+        Worker worker = workers.get();
+        for (int i = 0; i < chunk.size; i++) {
+            if (chunk.status[i] == MALFORMED)
+                continue;
+            System.arraycopy(chunk.sudokus, i * 81, worker.sudoku, 0, 81);
+            long start = System.nanoTime();
+            boolean solved = worker.solver.solve(worker.sudoku, worker.solution);
+            chunk.nanos[i] = System.nanoTime() - start;
+            if (solved) {
+                System.arraycopy(worker.solution, 0, chunk.solutions, i * 81, 81);
+                chunk.status[i] = SOLVED;
+            } else {
+                chunk.status[i] = UNSOLVABLE;
+            }
+        }
+    }
+
+    private static class Chunk {
+
+        final int[] sudokus = new int[CHUNK_SIZE * 81];
+        final int[] solutions = new int[CHUNK_SIZE * 81];
+        final int[] solution = new int[81];
+        final byte[] status = new byte[CHUNK_SIZE];
+        final long[] nanos = new long[CHUNK_SIZE];
+        int size;
+
+        int[] solution(int i) {
+            System.arraycopy(solutions, i * 81, solution, 0, 81);
+            return solution;
+        }
+    }
+
+    private static class Worker {
+
+        final SudokuSolver solver;
+        final int[] sudoku = new int[81];
+        final int[] solution = new int[81];
+
+        Worker(SolveListener listener) {
+            solver = new SudokuSolver(listener);
+        }
+    }
+
+    public static class BatchReport {
+
+        long solved;
+        long unsolvable;
+        long malformed;
+        long elapsedNanos;
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        public long getSolved() {
+            return solved;
+        }
+
+        public long getUnsolvable() {
+            return unsolvable;
+        }
+
+        public long getMalformed() {
+            return malformed;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public double getPuzzlesPerSecond() {
+            long puzzles = solved + unsolvable;
+            return elapsedNanos == 0 ? 0 : puzzles * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Solved %d, unsolvable %d, malformed %d in %.3f s (%.0f puzzles/s)%nLatency: %s",
+                    solved, unsolvable, malformed, elapsedNanos / 1e9, getPuzzlesPerSecond(), latency.summary());
+        }
+    }
+}
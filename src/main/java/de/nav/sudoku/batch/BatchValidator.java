@@ -0,0 +1,138 @@
+package de.nav.sudoku.batch;
+
+import de.nav.sudoku.solving.SolutionValidator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Checks many submitted grids against their Sudokus, each grid paired with the Sudoku at the same position
+ * of the other input. Reading and checking reuse the same buffers throughout, so a batch does not allocate
+ * per grid.
+ *
+ * Entries without a grid, the empty lines of the text format and the unsolved records of the packed format,
+ * keep their place and are reported as {@link #UNSOLVED}, so the output of a {@link BatchSolver} can be checked
+ * against its input as it is. Any other grid that is cut short, even before its first field, is malformed.
+ * Entries without a Sudoku are skipped, as the batch solver skips them.
+ */
+public class BatchValidator {
+
+    /**
+     * Passed to {@link Listener#rejected(long, int)} for a pair of which one is not a well-formed 9x9 grid,
+     * or has no counterpart in the other input.
+     */
+    public static final int MALFORMED = -2;
+
+    /**
+     * Passed to {@link Listener#rejected(long, int)} for a well-formed Sudoku whose entry holds no grid,
+     * see {@link PuzzleInput#NO_GRID}.
+     */
+    public static final int UNSOLVED = -3;
+
+    private BatchValidator() {
+    }
+
+    /**
+     * Picks the formats by the file names, see {@link PuzzleInput#open(Path)}.
+     */
+    public static ValidationReport validate(Path sudokus, Path grids, Listener listener) throws IOException {
+        try (PuzzleInput sudokuInput = PuzzleInput.open(sudokus);
+             PuzzleInput gridInput = PuzzleInput.open(grids)) {
+            return validate(sudokuInput, gridInput, listener);
+        }
+    }
+
+    /**
+     * Reads both inputs to their end.
+     */
+    public static ValidationReport validate(PuzzleInput sudokus, PuzzleInput grids, Listener listener) throws IOException {
+        SolutionValidator validator = new SolutionValidator();
+        ValidationReport report = new ValidationReport();
+        int[] sudoku = new int[81];
+        int[] grid = new int[81];
+        long start = System.nanoTime();
+        for (long index = 0; ; index++) {
+            int sudokuFields;
+            do {
+                sudokuFields = sudokus.next(sudoku);
+            } while (sudokuFields == PuzzleInput.NO_GRID);
+            int gridFields = grids.next(grid);
+            if (sudokuFields == PuzzleInput.END_OF_INPUT && gridFields == PuzzleInput.END_OF_INPUT)
+                break;
+            int conflict = sudokuFields != 81 ? MALFORMED
+                    : gridFields == PuzzleInput.NO_GRID ? UNSOLVED
+                    : gridFields == 81 ? validator.firstConflict(sudoku, grid) : MALFORMED;
+            if (conflict == SolutionValidator.VALID) {
+                report.valid++;
+            } else {
+                if (conflict == MALFORMED)
+                    report.malformed++;
+                else if (conflict == UNSOLVED)
+                    report.unsolved++;
+                else
+                    report.invalid++;
+                listener.rejected(index, conflict);
+            }
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    public interface Listener {
+
+        Listener NONE = (index, field) -> {
+        };
+
+        /**
+         * Called for every grid that is not a solution of its Sudoku, or is missing, in input order.
+         *
+         * @param index the position of the pair in the inputs, from 0
+         * @param field the first conflicting field, see {@link SolutionValidator#firstConflict(int[], int[])},
+         *              {@link #MALFORMED} or {@link #UNSOLVED}
+         */
+        void rejected(long index, int field);
+    }
+
+    public static class ValidationReport {
+
+        long valid;
+        long invalid;
+        long malformed;
+        long unsolved;
+        long elapsedNanos;
+
+        public long getValid() {
+            return valid;
+        }
+
+        public long getInvalid() {
+            return invalid;
+        }
+
+        public long getMalformed() {
+            return malformed;
+        }
+
+        /**
+         * @return the number of Sudokus that came without a grid
+         */
+        public long getUnsolved() {
+            return unsolved;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getGridsPerSecond() {
+            long grids = valid + invalid + malformed + unsolved;
+            return elapsedNanos == 0 ? 0 : grids * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Valid %d, invalid %d, malformed %d, unsolved %d in %.3f s (%.0f grids/s)",
+                    valid, invalid, malformed, unsolved, elapsedNanos / 1e9, getGridsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package de.nav.sudoku.batch;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs the chunks of a batch through worker threads and hands them back in the order they were filled.
+ *
+ * Chunks are filled and drained on the calling thread and processed on a worker thread in between. A chunk is
+ * drained only after all chunks filled before it. At most {@code maxChunksInFlight} chunks are processed ahead of
+ * the oldest chunk not yet drained, so a slow chunk holds back filling instead of letting finished chunks pile up
+ * in memory. Drained chunks are filled again, so a batch never has more chunks than are in flight at once.
+ * With a single thread, each chunk is processed and drained on the calling thread right after it was filled.
+ *
+ * One instance runs one batch at a time. Call {@link #close()} to stop the worker threads.
+ *
+ * @param <C> the chunks, which carry their input and their results
+ */
+public class ChunkPipeline<C> implements AutoCloseable {
+
+    private final int maxChunksInFlight;
+    private final ExecutorService executor;
+
+    /**
+     * @param threads           number of worker threads; with 1, all chunks are processed on the calling thread
+     * @param maxChunksInFlight number of chunks that may be processed ahead of the oldest chunk not yet drained
+     * @param threadName        the name of the worker threads
+     */
+    public ChunkPipeline(int threads, int maxChunksInFlight, String threadName) {
+        if (threads < 1 || maxChunksInFlight < 1)
+            throw new IllegalArgumentException("Need at least one thread and one chunk in flight");
+        this.maxChunksInFlight = maxChunksInFlight;
+        this.executor = threads == 1 ? null : Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Fills, processes and drains chunks until the source has nothing left. A runtime exception thrown by
+     * processing is passed on by the drain of its chunk, after which the chunks still in flight are cancelled.
+     *
+     * @param newChunk creates a chunk whenever there is no drained one to fill again
+     * @param process  runs on a worker thread, so it must only touch the chunk and per-thread state
+     */
+    public void run(Supplier<C> newChunk, Source<C> source, Consumer<C> process, Sink<C> sink) throws IOException {
+        ArrayDeque<C> freeChunks = new ArrayDeque<>();
+        ArrayDeque<Future<C>> chunksInFlight = new ArrayDeque<>();
+        try {
+            for (long index = 0; ; index++) {
+                C chunk = freeChunks.isEmpty() ? newChunk.get() : freeChunks.poll();
+                if (!source.fill(chunk, index))
+                    break;
+                if (executor == null) {
+                    process.accept(chunk);
+                    sink.drain(chunk);
+                    freeChunks.add(chunk);
+                    continue;
+                }
+                chunksInFlight.add(executor.submit(() -> {
+                    process.accept(chunk);
+                    return chunk;
+                }));
+                if (chunksInFlight.size() >= maxChunksInFlight)
+                    freeChunks.add(drainOldest(chunksInFlight, sink));
+            }
+            while (!chunksInFlight.isEmpty())
+                drainOldest(chunksInFlight, sink);
+        } finally {
+            for (Future<C> future : chunksInFlight)
+                future.cancel(true);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    private C drainOldest(ArrayDeque<Future<C>> chunksInFlight, Sink<C> sink) throws IOException {
+        C chunk;
+        try {
+            chunk = chunksInFlight.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a chunk");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+        sink.drain(chunk);
+        return chunk;
+    }
+
+    public interface Source<C> {
+        /**
+         * @param index the position of the chunk in the batch, from 0
+         * @return false if there was nothing left to put into the chunk
+         */
+        boolean fill(C chunk, long index) throws IOException;
+    }
+
+    public interface Sink<C> {
+        void drain(C chunk) throws IOException;
+    }
+}
@@ -0,0 +1,39 @@
+package de.nav.sudoku.batch;
+
+import java.nio.file.Path;
+
+/**
+ * Layout of the packed binary format for 9x9 Sudokus.
+ *
+ * A file starts with a header of {@value #HEADER_SIZE} bytes: the magic bytes "SDKP", the format version,
+ * the box size 3 and the record size as a big-endian short. Records of {@value #RECORD_SIZE} bytes follow,
+ * one per Sudoku, with 4 bits per field, row by row, the first of two fields in the high half of a byte.
+ * The half byte left over after the 81st field marks a record without a solution.
+ *
+ * Records all have the same size, so the header and the file size are the whole index: there are
+ * (file size - header size) / record size of them, and record n starts at header size + n * record size.
+ */
+final class PackedFormat {
+
+    static final String EXTENSION = ".sdkp";
+
+    static final byte[] MAGIC = {'S', 'D', 'K', 'P'};
+    static final byte VERSION = 1;
+    static final byte BOX_SIZE = 3;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_SIZE = 41;
+
+    static final int SOLVED = 0;
+    static final int UNSOLVED = 0xF;
+
+    private PackedFormat() {
+    }
+
+    static boolean isPacked(Path path) {
+        return path.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    static byte[] header() {
+        return new byte[]{MAGIC[0], MAGIC[1], MAGIC[2], MAGIC[3], VERSION, BOX_SIZE, 0, RECORD_SIZE};
+    }
+}
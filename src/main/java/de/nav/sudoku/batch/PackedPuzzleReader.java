@@ -0,0 +1,119 @@
+package de.nav.sudoku.batch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads Sudokus in the {@link PackedFormat packed format} from a memory-mapped file.
+ *
+ * Fields are decoded straight from the mapped pages into the array handed to {@link #next(int[], int)},
+ * there is no copy in between and no allocation per Sudoku. Besides reading in order, any Sudoku can be
+ * read by its number with {@link #read(long, int[], int)}.
+ *
+ * Files larger than 2 GB are mapped in several segments of whole records. The mapping is released by the
+ * garbage collector, not by {@link #close()}.
+ */
+public class PackedPuzzleReader implements PuzzleInput {
+
+    private static final int RECORDS_PER_SEGMENT = Integer.MAX_VALUE / PackedFormat.RECORD_SIZE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long count;
+    private long nextRecord;
+
+    /**
+     * @throws IOException if the file does not start with a header of the packed format
+     *                     or does not consist of whole records
+     */
+    public PackedPuzzleReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long recordBytes = channel.size() - PackedFormat.HEADER_SIZE;
+        checkHeader(channel);
+        if (recordBytes % PackedFormat.RECORD_SIZE != 0)
+            throw new IOException("Packed Sudokus end in the middle of a record");
+        count = recordBytes / PackedFormat.RECORD_SIZE;
+        segments = new MappedByteBuffer[(int) ((count + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT)];
+        for (int segment = 0; segment < segments.length; segment++) {
+            long first = (long) segment * RECORDS_PER_SEGMENT;
+            long records = Math.min(RECORDS_PER_SEGMENT, count - first);
+            segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    PackedFormat.HEADER_SIZE + first * PackedFormat.RECORD_SIZE, records * PackedFormat.RECORD_SIZE);
+        }
+    }
+
+    public static PackedPuzzleReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new PackedPuzzleReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of Sudokus in the file
+     */
+    public long size() {
+        return count;
+    }
+
+    @Override
+    public int next(int[] fields, int offset) {
+        if (nextRecord == count)
+            return END_OF_INPUT;
+        return read(nextRecord++, fields, offset);
+    }
+
+    /**
+     * Reads the Sudoku with the given number, starting at 0, without moving the position of {@link #next(int[], int)}.
+     *
+     * @param fields receives the 81 fields, starting at the given offset
+     * @return 81, or {@link #NO_GRID} for a record without a solution, or the number of the first field that is
+     * not a number from 0 to 9
+     */
+    public int read(long index, int[] fields, int offset) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Sudoku " + index + " of " + count);
+        ByteBuffer segment = segments[(int) (index / RECORDS_PER_SEGMENT)];
+        int position = (int) (index % RECORDS_PER_SEGMENT) * PackedFormat.RECORD_SIZE;
+        int last = segment.get(position + PackedFormat.RECORD_SIZE - 1) & 0xFF;
+        if ((last & 0xF) == PackedFormat.UNSOLVED)
+            return NO_GRID;
+        for (int field = 0; field < 80; field += 2) {
+            int b = segment.get(position++) & 0xFF;
+            int high = b >>> 4;
+            int low = b & 0xF;
+            if (high > 9)
+                return field;
+            if (low > 9)
+                return field + 1;
+            fields[offset + field] = high;
+            fields[offset + field + 1] = low;
+        }
+        if (last >>> 4 > 9)
+            return 80;
+        fields[offset + 80] = last >>> 4;
+        return 81;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void checkHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(PackedFormat.HEADER_SIZE);
+        while (header.hasRemaining())
+            if (channel.read(header, header.position()) < 0)
+                break;
+        if (header.hasRemaining() || !Arrays.equals(header.array(), PackedFormat.header()))
+            throw new IOException("Not a file of packed Sudokus in version " + PackedFormat.VERSION);
+    }
+}
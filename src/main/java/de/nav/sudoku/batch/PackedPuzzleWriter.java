@@ -0,0 +1,54 @@
+package de.nav.sudoku.batch;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes Sudokus or solutions in the {@link PackedFormat packed format} that {@link PackedPuzzleReader} reads.
+ * A Sudoku without a solution still takes a record, marked as unsolved.
+ */
+public class PackedPuzzleWriter implements PuzzleOutput {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final byte[] record = new byte[PackedFormat.RECORD_SIZE];
+    private final byte[] unsolved = new byte[PackedFormat.RECORD_SIZE];
+
+    /**
+     * Writes the header right away, so even an output without Sudokus is a valid file.
+     */
+    public PackedPuzzleWriter(OutputStream out) throws IOException {
+        this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+        this.out.write(PackedFormat.header());
+        unsolved[PackedFormat.RECORD_SIZE - 1] = PackedFormat.UNSOLVED;
+    }
+
+    public static PackedPuzzleWriter open(Path path) throws IOException {
+        return new PackedPuzzleWriter(Files.newOutputStream(path));
+    }
+
+    /**
+     * Writes the first 81 fields, each of which has to be a number from 0 to 9.
+     */
+    @Override
+    public void write(int[] fields) throws IOException {
+        for (int field = 0; field < 80; field += 2)
+            record[field >> 1] = (byte) (fields[field] << 4 | fields[field + 1]);
+        record[40] = (byte) (fields[80] << 4 | PackedFormat.SOLVED);
+        out.write(record);
+    }
+
+    @Override
+    public void writeUnsolved() throws IOException {
+        out.write(unsolved);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
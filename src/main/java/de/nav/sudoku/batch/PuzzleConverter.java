@@ -0,0 +1,40 @@
+package de.nav.sudoku.batch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Converts files of Sudokus between the text format and the packed format. Entries that are not
+ * well-formed Sudokus, or have no solution, are carried over as entries without a solution.
+ */
+public class PuzzleConverter {
+
+    private PuzzleConverter() {
+    }
+
+    /**
+     * Picks the formats by the file names, see {@link PuzzleInput#open(Path)} and {@link PuzzleOutput#open(Path)}.
+     *
+     * @return the number of entries written
+     */
+    public static long convert(Path input, Path output) throws IOException {
+        try (PuzzleInput reader = PuzzleInput.open(input);
+             PuzzleOutput writer = PuzzleOutput.open(output)) {
+            return convert(reader, writer);
+        }
+    }
+
+    public static long convert(PuzzleInput reader, PuzzleOutput writer) throws IOException {
+        int[] fields = new int[81];
+        long count = 0;
+        int fieldCount;
+        while ((fieldCount = reader.next(fields)) != PuzzleInput.END_OF_INPUT) {
+            if (fieldCount == 81)
+                writer.write(fields);
+            else
+                writer.writeUnsolved();
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,39 @@
+package de.nav.sudoku.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A sequence of 9x9 Sudokus, read one at a time into an array the caller keeps.
+ */
+public interface PuzzleInput extends Closeable {
+
+    int END_OF_INPUT = -1;
+
+    /**
+     * Returned for an entry that holds no grid, as written for a Sudoku without a solution.
+     */
+    int NO_GRID = -2;
+
+    /**
+     * Opens the file in the {@link PackedPuzzleReader packed format} if its name ends with
+     * {@link PackedFormat#EXTENSION}, and in the {@link PuzzleReader text format} otherwise.
+     */
+    static PuzzleInput open(Path path) throws IOException {
+        return PackedFormat.isPacked(path) ? PackedPuzzleReader.open(path) : PuzzleReader.open(path);
+    }
+
+    /**
+     * Reads the next Sudoku.
+     *
+     * @param fields receives the fields, starting at the given offset; at most 81 are written
+     * @return the number of fields found, which is 81 for a well-formed Sudoku, {@link #NO_GRID} for an entry
+     * without one, or {@link #END_OF_INPUT} if there are no more Sudokus
+     */
+    int next(int[] fields, int offset) throws IOException;
+
+    default int next(int[] fields) throws IOException {
+        return next(fields, 0);
+    }
+}
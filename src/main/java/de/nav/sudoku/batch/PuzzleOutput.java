@@ -0,0 +1,27 @@
+package de.nav.sudoku.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A sequence of 9x9 Sudokus or solutions, in which an entry without a solution still takes its place,
+ * so entry n of the output always belongs to entry n of the input.
+ */
+public interface PuzzleOutput extends Closeable {
+
+    /**
+     * Creates the file in the {@link PackedPuzzleWriter packed format} if its name ends with
+     * {@link PackedFormat#EXTENSION}, and in the {@link PuzzleWriter text format} otherwise.
+     */
+    static PuzzleOutput open(Path path) throws IOException {
+        return PackedFormat.isPacked(path) ? PackedPuzzleWriter.open(path) : PuzzleWriter.open(path);
+    }
+
+    /**
+     * Writes the first 81 fields.
+     */
+    void write(int[] fields) throws IOException;
+
+    void writeUnsolved() throws IOException;
+}
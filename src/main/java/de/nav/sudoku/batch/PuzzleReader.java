@@ -0,0 +1,116 @@
+package de.nav.sudoku.batch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams Sudokus in the common one-per-line text format through a fixed buffer.
+ *
+ * Each line starts with 81 fields, row by row: the digits 1 to 9 for given numbers and 0 or '.' for empty fields.
+ * Anything on the line after the first character that is not a field is ignored. An empty line is an entry
+ * without a grid, {@link #NO_GRID}, as {@link PuzzleWriter#writeUnsolved()} writes for a Sudoku without a solution,
+ * so entries keep their positions.
+ * Parsing writes straight into the array handed to {@link #next(int[])}, so reading does not allocate per Sudoku.
+ */
+public class PuzzleReader implements PuzzleInput {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long lineNumber;
+    private boolean endOfInput;
+
+    public PuzzleReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    public static PuzzleReader open(Path path) throws IOException {
+        return new PuzzleReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Reads the next line.
+     *
+     * @param fields receives the fields of the line; only the first 81 are written
+     * @return the number of fields found on the line, which is 81 for a well-formed one, {@link #NO_GRID} for
+     * an empty one, or {@link #END_OF_INPUT} if there are no more lines
+     */
+    @Override
+    public int next(int[] fields) throws IOException {
+        return next(fields, 0);
+    }
+
+    /**
+     * Same as {@link #next(int[])}, but writes the fields starting at the given offset.
+     */
+    @Override
+    public int next(int[] fields, int offset) throws IOException {
+        int found = 0;
+        boolean inFields = true;
+        boolean lineIsEmpty = true;
+        int b;
+        while ((b = nextByte()) >= 0 && b != '\n') {
+            if (b == '\r')
+                continue;
+            lineIsEmpty = false;
+            if (!inFields)
+                continue;
+            int value = fieldValue(b);
+            if (value < 0) {
+                inFields = false;
+                continue;
+            }
+            if (found < 81)
+                fields[offset + found] = value;
+            found++;
+        }
+        if (b < 0 && lineIsEmpty)
+            return END_OF_INPUT;
+        lineNumber++;
+        return lineIsEmpty ? NO_GRID : found;
+    }
+
+    /**
+     * @return the number of the line last returned by {@link #next(int[])}, starting at 1
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static int fieldValue(int b) {
+        if (b == '.')
+            return 0;
+        if (b >= '0' && b <= '9')
+            return b - '0';
+        return -1;
+    }
+
+    private int nextByte() throws IOException {
+        if (!buffer.hasRemaining()) {
+            if (endOfInput)
+                return -1;
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) {
+                endOfInput = true;
+                return -1;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+}
@@ -0,0 +1,46 @@
+package de.nav.sudoku.batch;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes solutions in the same one-per-line format {@link PuzzleReader} reads.
+ * A Sudoku without a solution is written as an empty line, so line n of the output always belongs to
+ * Sudoku n of the input.
+ */
+public class PuzzleWriter implements PuzzleOutput {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final byte[] line = new byte[82];
+
+    public PuzzleWriter(OutputStream out) {
+        this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+        line[81] = '\n';
+    }
+
+    public static PuzzleWriter open(Path path) throws IOException {
+        return new PuzzleWriter(Files.newOutputStream(path));
+    }
+
+    @Override
+    public void write(int[] fields) throws IOException {
+        for (int field = 0; field < 81; field++)
+            line[field] = (byte) ('0' + fields[field]);
+        out.write(line);
+    }
+
+    @Override
+    public void writeUnsolved() throws IOException {
+        out.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,192 @@
+package de.nav.sudoku.caching;
+
+import de.nav.sudoku.solving.SolveResult;
+import de.nav.sudoku.solving.Solver;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Answers Sudokus from a {@link SolutionCache} where possible and solves only the others with the wrapped solver.
+ *
+ * A Sudoku is first looked up as it is. Otherwise it is looked up in its canonical form, so a Sudoku that is
+ * only transposed, has its bands, stacks, rows or columns permuted or its numbers relabeled compared to one solved
+ * before is a hit as well, and the cached solution is mapped back through the inverse of the transform. The
+ * canonical form is only searched for if a cached Sudoku has the same invariant, see {@link SolutionCache}.
+ * Sudokus with a number twice in a row or column, and those with too few givens to find their canonical form,
+ * are not cached.
+ *
+ * Only solving is cached, counting solutions always goes to the wrapped solver. For Sudokus with more than one
+ * solution, a hit gives the solution that was found for the first equivalent Sudoku.
+ * Like the wrapped solver, an instance must not be used by more than one thread at a time, but the cache may be
+ * shared with other instances.
+ */
+public class CachingSolver implements Solver {
+
+    private static final int FIELD_COUNT = 81;
+    private static final int MISS = 0;
+    private static final int SOLVED = 1;
+    private static final int UNSOLVABLE = 2;
+    private static final int UNCACHED = 3;
+
+    private final Solver solver;
+    private final SolutionCache cache;
+    private final Canonicalizer canonicalizer = new Canonicalizer();
+    private final int[] canonicalSolution = new int[FIELD_COUNT];
+    private final int[] fields = new int[FIELD_COUNT];
+    /**
+     * The key, its invariant and whether it is in canonical form, of the Sudoku last looked up.
+     */
+    private byte[] key;
+    private long invariant;
+    private boolean canonical;
+
+    /**
+     * @param solver the solver for 9 x 9 Sudokus that are not cached yet
+     */
+    public CachingSolver(Solver solver, SolutionCache cache) {
+        if (solver.getSize() != 9)
+            throw new IllegalArgumentException("Only 9 x 9 Sudokus can be cached, the solver is for size " + solver.getSize());
+        this.solver = solver;
+        this.cache = cache;
+    }
+
+    @Override
+    public int getSize() {
+        return solver.getSize();
+    }
+
+    @Override
+    public boolean solve(int[] sudoku, int[] solution) {
+        int lookup = lookUp(sudoku, solution);
+        if (lookup == SOLVED || lookup == UNSOLVABLE)
+            return lookup == SOLVED;
+        boolean solved = solver.solve(sudoku, solution);
+        if (lookup == MISS)
+            store(solved ? solution : null);
+        return solved;
+    }
+
+    /**
+     * A hit takes no search, a miss goes to the wrapped solver with the budget. Sudokus whose budget ran out
+     * are not cached.
+     */
+    @Override
+    public SolveResult solve(int[] sudoku, int[] solution, Duration timeout, long maxNodes) {
+        long start = System.nanoTime();
+        int lookup = lookUp(sudoku, solution);
+        if (lookup == SOLVED || lookup == UNSOLVABLE)
+            return new SolveResult(lookup == SOLVED ? SolveResult.Status.SOLVED : SolveResult.Status.UNSOLVABLE,
+                    0, 0, System.nanoTime() - start);
+        SolveResult result = solver.solve(sudoku, solution, timeout, maxNodes);
+        if (lookup == MISS && result.getStatus() != SolveResult.Status.BUDGET_EXCEEDED)
+            store(result.isSolved() ? solution : null);
+        return result;
+    }
+
+    @Override
+    public int countSolutions(int[] sudoku, int limit) {
+        return solver.countSolutions(sudoku, limit);
+    }
+
+    public SolutionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Looks the Sudoku up and writes the solution of a hit. On a miss, keeps what {@link #store(int[])} needs.
+     *
+     * @return {@link #SOLVED} or {@link #UNSOLVABLE} for a hit, {@link #MISS}, or {@link #UNCACHED} if the Sudoku
+     * cannot be cached
+     */
+    private int lookUp(int[] sudoku, int[] solution) {
+        if (sudoku.length < FIELD_COUNT || (key = toKey(sudoku)) == null)
+            return UNCACHED;
+        canonical = false;
+        byte[] cached = cache.get(key);
+        if (cached == null) {
+            if (!canonicalizer.load(sudoku))
+                return UNCACHED;
+            invariant = canonicalizer.invariant;
+            // Only a Sudoku with the same invariant can be equivalent, so only then the canonical form is needed
+            if (cache.containsInvariant(invariant)) {
+                List<byte[]> notCanonical = cache.takeNotCanonical(invariant);
+                for (int i = 0; i < notCanonical.size(); i += 2)
+                    storeCanonical(notCanonical.get(i), notCanonical.get(i + 1));
+                if (!notCanonical.isEmpty())
+                    canonicalizer.load(sudoku);
+                if (!canonicalizer.canonicalize()) {
+                    cache.countLookup(false);
+                    return UNCACHED;
+                }
+                key = toBytes(canonicalizer.canonical);
+                canonical = true;
+                cached = cache.get(key);
+            }
+        }
+        cache.countLookup(cached != null);
+        if (cached == null)
+            return MISS;
+        if (cached == SolutionCache.NO_SOLUTION)
+            return UNSOLVABLE;
+        if (canonical) {
+            canonicalizer.fromCanonical(cached, solution);
+        } else {
+            for (int field = 0; field < FIELD_COUNT; field++)
+                solution[field] = cached[field];
+        }
+        return SOLVED;
+    }
+
+    /**
+     * Caches the solution of the Sudoku last missed, null if it has none.
+     */
+    private void store(int[] solution) {
+        byte[] cached = SolutionCache.NO_SOLUTION;
+        if (solution != null && canonical) {
+            canonicalizer.toCanonical(solution, canonicalSolution);
+            cached = toBytes(canonicalSolution);
+        } else if (solution != null) {
+            cached = toBytes(solution);
+        }
+        cache.put(key, cached, invariant, canonical);
+    }
+
+    /**
+     * Caches a Sudoku that was stored as it was given in canonical form instead, or drops it if it has none.
+     */
+    private void storeCanonical(byte[] sudoku, byte[] solution) {
+        for (int field = 0; field < FIELD_COUNT; field++)
+            fields[field] = sudoku[field];
+        if (!canonicalizer.load(fields) || !canonicalizer.canonicalize())
+            return;
+        byte[] cached = SolutionCache.NO_SOLUTION;
+        if (solution != SolutionCache.NO_SOLUTION) {
+            for (int field = 0; field < FIELD_COUNT; field++)
+                fields[field] = solution[field];
+            canonicalizer.toCanonical(fields, canonicalSolution);
+            cached = toBytes(canonicalSolution);
+        }
+        cache.put(toBytes(canonicalizer.canonical), cached, canonicalizer.invariant, true);
+    }
+
+    /**
+     * @return the Sudoku as bytes, or null if it has a number out of range
+     */
+    private static byte[] toKey(int[] sudoku) {
+        byte[] key = new byte[FIELD_COUNT];
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            if (sudoku[field] < 0 || sudoku[field] > 9)
+                return null;
+            key[field] = (byte) sudoku[field];
+        }
+        return key;
+    }
+
+    private static byte[] toBytes(int[] fields) {
+        byte[] bytes = new byte[FIELD_COUNT];
+        for (int field = 0; field < FIELD_COUNT; field++)
+            bytes[field] = (byte) fields[field];
+        return bytes;
+    }
+}
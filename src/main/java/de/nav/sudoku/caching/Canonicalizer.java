@@ -0,0 +1,493 @@
+package de.nav.sudoku.caching;
+
+import java.util.Arrays;
+
+/**
+ * Finds the canonical form of a 9 x 9 Sudoku, which is the same for all Sudokus that turn into each other
+ * by transposing, permuting the bands, permuting the rows within each band and relabeling the numbers.
+ * Since transposing turns rows into columns, that includes permuting the stacks and the columns within them.
+ *
+ * Every row, column, band and stack first gets a key that these transforms keep, made of the numbers of givens
+ * around its givens and how often their numbers occur. The keys of all bands and stacks make up the
+ * {@link #invariant} of the Sudoku, which is cheap and tells most Sudokus that are not equivalent apart.
+ * Only transforms that sort the bands, stacks, rows and columns by their keys are considered, so the search
+ * only has to decide between those with equal keys.
+ *
+ * Of the Sudokus reachable by these transforms, the canonical one is the smallest, compared field by field
+ * row by row, with empty fields as 0 and the numbers relabeled in the order they first occur. The rows are placed
+ * one after another for each orientation and order of the stacks. The columns within a stack are kept in cells
+ * of columns that are still interchangeable, which each placed row splits further, so the column order is only
+ * settled as far as the rows need it. A row is only followed as long as the rows placed so far are not greater
+ * than those of the smallest form found yet. Sudokus with hardly any givens have too many equal keys for that,
+ * so the search gives up after {@link #MAX_NODES} rows.
+ *
+ * The transform that leads to the canonical form is kept, so grids can be mapped into and back out of it.
+ * An instance keeps its buffers between calls and must not be shared between threads.
+ */
+class Canonicalizer {
+
+    /**
+     * The number of rows the search places at most. Without equal keys, it places each row once per orientation,
+     * which is all it takes for the Sudokus of the corpus; only Sudokus with fewer than eight givens need more.
+     */
+    static final int MAX_NODES = 200;
+
+    private static final int SIZE = 9;
+    private static final int BOX_SIZE = 3;
+    private static final int FIELD_COUNT = SIZE * SIZE;
+    private static final int NEW = SIZE + 1;
+    private static final int[][] STACK_ORDERS = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+
+    /**
+     * The invariant of the Sudoku last given to {@link #load(int[])}, equal for equivalent Sudokus.
+     */
+    long invariant;
+
+    /**
+     * The canonical form of the Sudoku last given to {@link #canonicalize()}.
+     */
+    final int[] canonical = new int[FIELD_COUNT];
+
+    private final int[] sudoku = new int[FIELD_COUNT];
+    private final int[] digitCounts = new int[SIZE + 1];
+    private final int[] boxCounts = new int[SIZE];
+    /**
+     * Per orientation, the numbers of givens in the rows, then in the columns.
+     */
+    private final int[][] lineCounts = new int[2][SIZE];
+    /**
+     * Per orientation, the keys of the rows, then of the columns.
+     */
+    private final long[][] lineKeys = new long[2][SIZE];
+    /**
+     * The keys of {@link #lineKeys}, sorted within each band or stack.
+     */
+    private final long[][] sortedLineKeys = new long[2][SIZE];
+    /**
+     * Per orientation, the keys of the bands, then of the stacks.
+     */
+    private final long[][] blockKeys = new long[2][BOX_SIZE];
+    private final long[][] sortedBlockKeys = new long[2][BOX_SIZE];
+
+    private final int[] source = new int[FIELD_COUNT];
+    private final int[] candidate = new int[FIELD_COUNT];
+    private final int[] rowOrder = new int[SIZE];
+    /**
+     * The column order after placing as many rows as the index, columns within one cell are still interchangeable.
+     */
+    private final int[][] columnOrders = new int[SIZE + 1][SIZE];
+    /**
+     * Bit set of the columns that start a cell, after placing as many rows as the index.
+     */
+    private final int[] cellStarts = new int[SIZE + 1];
+    /**
+     * Length of the run of new numbers in a cell, at the column it starts, for the row placed at the index.
+     */
+    private final int[][] newRuns = new int[SIZE][SIZE];
+    private final int[] keys = new int[SIZE];
+    private final int[][] rowMinimums = new int[SIZE][SIZE];
+    private final int[] labelOfNumber = new int[SIZE + 1];
+    private final int[] numberOfLabel = new int[SIZE + 1];
+    private int labels;
+    private int usedRows;
+    private int orientation;
+    private int improvements;
+    private int nodes;
+
+    private boolean bestTransposed;
+    private int bestLabels;
+    private final int[] bestRowOrder = new int[SIZE];
+    private final int[] bestColumnOrder = new int[SIZE];
+    private final int[] bestLabelOfNumber = new int[SIZE + 1];
+    private final int[] bestNumberOfLabel = new int[SIZE + 1];
+
+    /**
+     * Same as {@link #load(int[])} followed by {@link #canonicalize()}.
+     */
+    boolean canonicalize(int[] sudoku) {
+        return load(sudoku) && canonicalize();
+    }
+
+    /**
+     * Takes the Sudoku and computes its keys and {@link #invariant}.
+     *
+     * @return false if the Sudoku has a number out of range or twice in a row or column, then nothing is computed
+     */
+    boolean load(int[] sudoku) {
+        for (int i = 0; i < SIZE; i++) {
+            int rowNumbers = 0;
+            int columnNumbers = 0;
+            for (int j = 0; j < SIZE; j++) {
+                int inRow = sudoku[i * SIZE + j];
+                int inColumn = sudoku[j * SIZE + i];
+                if (inRow < 0 || inRow > SIZE || inColumn < 0 || inColumn > SIZE
+                        || (rowNumbers & 1 << inRow) > 1 || (columnNumbers & 1 << inColumn) > 1)
+                    return false;
+                rowNumbers |= 1 << inRow;
+                columnNumbers |= 1 << inColumn;
+            }
+        }
+
+        System.arraycopy(sudoku, 0, this.sudoku, 0, FIELD_COUNT);
+        Arrays.fill(digitCounts, 0);
+        Arrays.fill(boxCounts, 0);
+        Arrays.fill(lineCounts[0], 0);
+        Arrays.fill(lineCounts[1], 0);
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            int number = sudoku[field];
+            if (number == 0)
+                continue;
+            int row = field / SIZE;
+            int col = field % SIZE;
+            digitCounts[number]++;
+            boxCounts[row / BOX_SIZE * BOX_SIZE + col / BOX_SIZE]++;
+            lineCounts[0][row]++;
+            lineCounts[1][col]++;
+        }
+
+        long digits = 0;
+        for (int number = 1; number <= SIZE; number++)
+            digits += mix(digitCounts[number] | 1 << 8);
+        long[] blockSums = new long[2];
+        for (int direction = 0; direction < 2; direction++) {
+            for (int line = 0; line < SIZE; line++)
+                lineKeys[direction][line] = lineKey(direction, line);
+            for (int block = 0; block < BOX_SIZE; block++) {
+                long key = mix(sortedCounts(boxCount(direction, block, 0), boxCount(direction, block, 1),
+                        boxCount(direction, block, 2)) | 2 << 12);
+                for (int line = block * BOX_SIZE; line < (block + 1) * BOX_SIZE; line++)
+                    key += mix(lineKeys[direction][line]);
+                blockKeys[direction][block] = key;
+                blockSums[direction] += mix(key);
+            }
+            System.arraycopy(lineKeys[direction], 0, sortedLineKeys[direction], 0, SIZE);
+            for (int block = 0; block < BOX_SIZE; block++)
+                sortThree(sortedLineKeys[direction], block * BOX_SIZE);
+            System.arraycopy(blockKeys[direction], 0, sortedBlockKeys[direction], 0, BOX_SIZE);
+            sortThree(sortedBlockKeys[direction], 0);
+        }
+        // Transposing swaps the keys of the bands and the stacks
+        invariant = mix(Math.min(blockSums[0], blockSums[1])) + Long.rotateLeft(mix(Math.max(blockSums[0], blockSums[1])), 21) + digits;
+        return true;
+    }
+
+    /**
+     * Finds the canonical form of the Sudoku last given to {@link #load(int[])}.
+     *
+     * @return false if the search gave up after {@link #MAX_NODES} rows, then there is no canonical form
+     */
+    boolean canonicalize() {
+        // The orientation whose bands have the smaller keys comes first, both if they are equal
+        int orientations = Arrays.compare(sortedBlockKeys[0], sortedBlockKeys[1]);
+        nodes = 0;
+        Arrays.fill(canonical, Integer.MAX_VALUE);
+        for (orientation = 0; orientation < 2; orientation++) {
+            if (orientation == 0 ? orientations > 0 : orientations < 0)
+                continue;
+            for (int field = 0; field < FIELD_COUNT; field++)
+                source[field] = orientation == 1 ? sudoku[(field % SIZE) * SIZE + field / SIZE] : sudoku[field];
+            long[] stackKeys = blockKeys[1 - orientation];
+            long[] columnKeys = lineKeys[1 - orientation];
+            for (int[] stackOrder : STACK_ORDERS) {
+                if (stackKeys[stackOrder[0]] > stackKeys[stackOrder[1]] || stackKeys[stackOrder[1]] > stackKeys[stackOrder[2]])
+                    continue;
+                int[] order = columnOrders[0];
+                int starts = 0;
+                for (int col = 0; col < SIZE; col++) {
+                    int column = stackOrder[col / BOX_SIZE] * BOX_SIZE + col % BOX_SIZE;
+                    int other = col;
+                    for (; other % BOX_SIZE > 0 && columnKeys[order[other - 1]] > columnKeys[column]; other--)
+                        order[other] = order[other - 1];
+                    order[other] = column;
+                }
+                for (int col = 0; col < SIZE; col++)
+                    if (col % BOX_SIZE == 0 || columnKeys[order[col]] != columnKeys[order[col - 1]])
+                        starts |= 1 << col;
+                cellStarts[0] = starts;
+                Arrays.fill(labelOfNumber, 0);
+                labels = 0;
+                usedRows = 0;
+                placeRow(0, false);
+                if (nodes > MAX_NODES)
+                    return false;
+            }
+        }
+
+        // Numbers that do not occur in the Sudoku get the remaining labels, so solutions can be mapped as well
+        int label = bestLabels;
+        for (int number = 1; number <= SIZE; number++)
+            if (bestLabelOfNumber[number] == 0) {
+                bestLabelOfNumber[number] = ++label;
+                bestNumberOfLabel[label] = number;
+            }
+        return true;
+    }
+
+    /**
+     * The key of a row, or of a column in the other direction: how many givens it has in each box, and for each of
+     * its givens how often its number occurs and how many givens the crossing line and the box have.
+     */
+    private long lineKey(int direction, int line) {
+        long key = 0;
+        int first = 0;
+        int second = 0;
+        int third = 0;
+        for (int i = 0; i < SIZE; i++) {
+            int row = direction == 0 ? line : i;
+            int col = direction == 0 ? i : line;
+            int number = sudoku[row * SIZE + col];
+            if (number == 0)
+                continue;
+            if (i < BOX_SIZE)
+                first++;
+            else if (i < 2 * BOX_SIZE)
+                second++;
+            else
+                third++;
+            key += mix(digitCounts[number] << 16 | lineCounts[1 - direction][i] << 8
+                    | boxCounts[row / BOX_SIZE * BOX_SIZE + col / BOX_SIZE]);
+        }
+        return key + mix(sortedCounts(first, second, third) | 1 << 12);
+    }
+
+    private int boxCount(int direction, int block, int i) {
+        return direction == 0 ? boxCounts[block * BOX_SIZE + i] : boxCounts[i * BOX_SIZE + block];
+    }
+
+    private static int sortedCounts(int first, int second, int third) {
+        int max = Math.max(first, Math.max(second, third));
+        int min = Math.min(first, Math.min(second, third));
+        return max << 8 | (first + second + third - max - min) << 4 | min;
+    }
+
+    private static void sortThree(long[] keys, int from) {
+        for (int i = from + 1; i < from + BOX_SIZE; i++)
+            for (int j = i; j > from && keys[j - 1] > keys[j]; j--) {
+                long key = keys[j];
+                keys[j] = keys[j - 1];
+                keys[j - 1] = key;
+            }
+    }
+
+    private static long mix(long value) {
+        value = (value ^ value >>> 33) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ value >>> 33) * 0xC4CEB9FE1A85EC53L;
+        return value ^ value >>> 33;
+    }
+
+    /**
+     * Applies the transform of the last canonical form to a grid of the same Sudoku, like its solution.
+     */
+    void toCanonical(int[] grid, int[] canonicalGrid) {
+        for (int row = 0; row < SIZE; row++)
+            for (int col = 0; col < SIZE; col++)
+                canonicalGrid[row * SIZE + col] = bestLabelOfNumber[grid[sourceField(row, col)]];
+    }
+
+    /**
+     * Takes a grid in the last canonical form back to the Sudoku it was computed for.
+     */
+    void fromCanonical(byte[] canonicalGrid, int[] grid) {
+        for (int row = 0; row < SIZE; row++)
+            for (int col = 0; col < SIZE; col++)
+                grid[sourceField(row, col)] = bestNumberOfLabel[canonicalGrid[row * SIZE + col]];
+    }
+
+    private int sourceField(int row, int col) {
+        int sourceRow = bestRowOrder[row];
+        int sourceColumn = bestColumnOrder[col];
+        return bestTransposed ? sourceColumn * SIZE + sourceRow : sourceRow * SIZE + sourceColumn;
+    }
+
+    /**
+     * Tries every row that may go to the position next. Within each cell, the row's fields are sorted so the
+     * row becomes as small as possible: empty fields first, then labeled numbers, then new ones. Empty fields
+     * stay interchangeable, all others are fixed from now on, and every order of the new numbers is tried,
+     * since it decides their labels.
+     *
+     * @param less whether the rows placed so far are smaller than those of the canonical form
+     */
+    private void placeRow(int position, boolean less) {
+        if (++nodes > MAX_NODES)
+            return;
+        if (position == SIZE) {
+            if (less)
+                takeCandidate();
+            return;
+        }
+
+        // Only the rows that become the smallest next row can lead to the canonical form
+        int[] minimum = rowMinimums[position];
+        int offset = position * SIZE;
+        Arrays.fill(minimum, Integer.MAX_VALUE);
+        int allowed = 0;
+        for (int row = 0; row < SIZE; row++) {
+            if (!mayPlace(position, row))
+                continue;
+            allowed++;
+            if (arrange(position, row, minimum) < 0)
+                System.arraycopy(candidate, offset, minimum, 0, SIZE);
+        }
+        int comparison = less ? -1 : Arrays.compare(minimum, 0, SIZE, canonical, offset, offset + SIZE);
+        if (comparison > 0)
+            return;
+
+        int improvementsBefore = improvements;
+        for (int row = 0; row < SIZE && nodes <= MAX_NODES; row++) {
+            // A row that is the only one allowed is still arranged from finding the minimum
+            if (!mayPlace(position, row) || allowed > 1 && arrange(position, row, minimum) != 0)
+                continue;
+            // Once a smaller form was found below, the rows placed so far are exactly those of it
+            if (improvements != improvementsBefore)
+                comparison = 0;
+            rowOrder[position] = row;
+            usedRows |= 1 << row;
+            orderNewNumbers(position, row, 0, comparison < 0, improvements);
+            usedRows &= ~(1 << row);
+        }
+    }
+
+    /**
+     * Whether the row may go to the position: it has to continue the band of the row before, or start an unused
+     * band with the next key, and have the next key within its band.
+     */
+    private boolean mayPlace(int position, int row) {
+        int band = row / BOX_SIZE;
+        if (position % BOX_SIZE != 0) {
+            if ((usedRows & 1 << row) != 0 || band != rowOrder[position - 1] / BOX_SIZE)
+                return false;
+        } else if ((usedRows >> band * BOX_SIZE & (1 << BOX_SIZE) - 1) != 0
+                || blockKeys[orientation][band] != sortedBlockKeys[orientation][position / BOX_SIZE]) {
+            return false;
+        }
+        return lineKeys[orientation][row] == sortedLineKeys[orientation][band * BOX_SIZE + position % BOX_SIZE];
+    }
+
+    /**
+     * Sorts the fields of the row within the cells of the column order so far and splits the cells, cell by cell
+     * as long as the row is not greater than the reference.
+     *
+     * @return the comparison of the sorted row with the reference
+     */
+    private int arrange(int position, int row, int[] reference) {
+        int[] previousOrder = columnOrders[position];
+        int[] order = columnOrders[position + 1];
+        int[] runs = newRuns[position];
+        int starts = cellStarts[position] | 1 << SIZE;
+        int nextStarts = 0;
+        int offset = position * SIZE;
+        int newLabel = labels;
+        int comparison = 0;
+        for (int cellStart = 0; cellStart < SIZE; ) {
+            int cellEnd = Integer.numberOfTrailingZeros(starts >> cellStart + 1) + cellStart + 1;
+            if (cellEnd == cellStart + 1) {
+                int column = previousOrder[cellStart];
+                int number = source[row * SIZE + column];
+                int value = number == 0 ? 0 : labelOfNumber[number] != 0 ? labelOfNumber[number] : ++newLabel;
+                order[cellStart] = column;
+                candidate[offset + cellStart] = value;
+                runs[cellStart] = 0;
+                nextStarts |= 1 << cellStart;
+                if (comparison == 0 && (comparison = Integer.compare(value, reference[cellStart])) > 0)
+                    return comparison;
+                cellStart = cellEnd;
+                continue;
+            }
+
+            for (int col = cellStart; col < cellEnd; col++) {
+                int column = previousOrder[col];
+                int number = source[row * SIZE + column];
+                int key = number == 0 ? 0 : labelOfNumber[number] != 0 ? labelOfNumber[number] : NEW;
+                int other = col;
+                for (; other > cellStart && keys[other - 1] > key; other--) {
+                    keys[other] = keys[other - 1];
+                    order[other] = order[other - 1];
+                }
+                keys[other] = key;
+                order[other] = column;
+            }
+
+            nextStarts |= 1 << cellStart;
+            for (int col = cellStart; col < cellEnd; col++) {
+                int value = keys[col] == NEW ? ++newLabel : keys[col];
+                candidate[offset + col] = value;
+                if (comparison == 0)
+                    comparison = Integer.compare(value, reference[col]);
+                if (value != 0)
+                    nextStarts |= 1 << col;
+                runs[col] = keys[col] == NEW && (col == cellStart || keys[col - 1] != NEW) ? cellEnd - col : 0;
+            }
+            if (comparison > 0)
+                return comparison;
+            cellStart = cellEnd;
+        }
+        cellStarts[position + 1] = nextStarts;
+        return comparison;
+    }
+
+    /**
+     * Tries every order of the new numbers of the row within their cells from the given column on,
+     * then labels them and places the next row.
+     */
+    private void orderNewNumbers(int position, int row, int col, boolean less, int improvementsBefore) {
+        int[] runs = newRuns[position];
+        while (col < SIZE && runs[col] < 2)
+            col++;
+        if (col < SIZE) {
+            permute(position, row, col, col + runs[col], less, improvementsBefore);
+            return;
+        }
+
+        int labelsBefore = labels;
+        int[] order = columnOrders[position + 1];
+        for (int column = 0; column < SIZE; column++)
+            label(source[row * SIZE + order[column]]);
+        placeRow(position + 1, less && improvements == improvementsBefore);
+        unlabel(labelsBefore);
+    }
+
+    private void permute(int position, int row, int from, int end, boolean less, int improvementsBefore) {
+        if (from == end) {
+            orderNewNumbers(position, row, end, less, improvementsBefore);
+            return;
+        }
+        int[] order = columnOrders[position + 1];
+        for (int col = from; col < end; col++) {
+            swap(order, from, col);
+            permute(position, row, from + 1, end, less, improvementsBefore);
+            swap(order, from, col);
+        }
+    }
+
+    private static void swap(int[] values, int i, int j) {
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    private int label(int number) {
+        if (number == 0)
+            return 0;
+        if (labelOfNumber[number] == 0) {
+            labelOfNumber[number] = ++labels;
+            numberOfLabel[labels] = number;
+        }
+        return labelOfNumber[number];
+    }
+
+    private void unlabel(int labelsBefore) {
+        while (labels > labelsBefore)
+            labelOfNumber[numberOfLabel[labels--]] = 0;
+    }
+
+    private void takeCandidate() {
+        System.arraycopy(candidate, 0, canonical, 0, FIELD_COUNT);
+        System.arraycopy(rowOrder, 0, bestRowOrder, 0, SIZE);
+        System.arraycopy(columnOrders[SIZE], 0, bestColumnOrder, 0, SIZE);
+        System.arraycopy(labelOfNumber, 0, bestLabelOfNumber, 0, SIZE + 1);
+        System.arraycopy(numberOfLabel, 0, bestNumberOfLabel, 0, SIZE + 1);
+        bestLabels = labels;
+        bestTransposed = orientation == 1;
+        improvements++;
+    }
+}
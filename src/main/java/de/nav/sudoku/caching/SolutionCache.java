@@ -0,0 +1,202 @@
+package de.nav.sudoku.caching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solutions of Sudokus, holding at most a fixed number of them and evicting the least recently used one first.
+ * Also remembers Sudokus that have no solution.
+ *
+ * A Sudoku is stored as it was given until another one with the same invariant, see {@link Canonicalizer},
+ * comes along, since only then it may have an equivalent one. From then on, the Sudokus with that invariant
+ * are stored in canonical form, together with their solutions in the same form.
+ *
+ * Meant to be shared by the {@link CachingSolver}s of all threads, every access is synchronized.
+ */
+public class SolutionCache {
+
+    /**
+     * Stored for Sudokus that have no solution.
+     */
+    static final byte[] NO_SOLUTION = new byte[0];
+
+    private final int capacity;
+    private final Map<Key, Entry> solutions;
+    /**
+     * The Sudokus with each invariant.
+     */
+    private final Map<Long, Bucket> buckets = new HashMap<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public SolutionCache(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be at least 1, was " + capacity);
+        this.capacity = capacity;
+        this.solutions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= SolutionCache.this.capacity)
+                    return false;
+                evictions++;
+                forget(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Looks up a Sudoku as it is, without counting a hit or miss.
+     *
+     * @return the solution in the same form as the Sudoku, {@link #NO_SOLUTION} if the Sudoku is known to have none,
+     * or null if it is not cached
+     */
+    synchronized byte[] get(byte[] sudoku) {
+        Entry entry = solutions.get(new Key(sudoku));
+        return entry == null ? null : entry.solution;
+    }
+
+    /**
+     * @return whether a Sudoku with the invariant is cached, which every Sudoku that is equivalent to
+     * a cached one is
+     */
+    synchronized boolean containsInvariant(long invariant) {
+        return buckets.containsKey(invariant);
+    }
+
+    /**
+     * Removes the Sudokus with the invariant that are stored as they were given, to be stored in canonical form.
+     *
+     * @return the Sudokus, each followed by its solution
+     */
+    synchronized List<byte[]> takeNotCanonical(long invariant) {
+        Bucket bucket = buckets.get(invariant);
+        if (bucket == null || bucket.notCanonical.isEmpty())
+            return List.of();
+        List<byte[]> taken = new ArrayList<>();
+        for (Key key : new ArrayList<>(bucket.notCanonical)) {
+            taken.add(key.fields);
+            taken.add(solutions.get(key).solution);
+            forget(key, solutions.remove(key));
+        }
+        return taken;
+    }
+
+    /**
+     * @param canonical whether the Sudoku and its solution are in canonical form
+     */
+    synchronized void put(byte[] sudoku, byte[] solution, long invariant, boolean canonical) {
+        Key key = new Key(sudoku);
+        Entry previous = solutions.remove(key);
+        if (previous != null)
+            forget(key, previous);
+        Bucket bucket = buckets.computeIfAbsent(invariant, ignored -> new Bucket());
+        bucket.size++;
+        if (!canonical)
+            bucket.notCanonical.add(key);
+        solutions.put(key, new Entry(solution, invariant, canonical));
+    }
+
+    synchronized void countLookup(boolean hit) {
+        if (hit)
+            hits++;
+        else
+            misses++;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return solutions.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Removes all solutions and starts counting from zero.
+     */
+    public synchronized void clear() {
+        solutions.clear();
+        buckets.clear();
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Cache: %d of %d entries, %d hit(s), %d miss(es) (%.1f%% hits), %d eviction(s)",
+                solutions.size(), capacity, hits, misses, 100 * getHitRate(), evictions);
+    }
+
+    private void forget(Key key, Entry entry) {
+        Bucket bucket = buckets.get(entry.invariant);
+        if (!entry.canonical)
+            bucket.notCanonical.remove(key);
+        if (--bucket.size == 0)
+            buckets.remove(entry.invariant);
+    }
+
+    private static final class Entry {
+
+        final byte[] solution;
+        final long invariant;
+        final boolean canonical;
+
+        Entry(byte[] solution, long invariant, boolean canonical) {
+            this.solution = solution;
+            this.invariant = invariant;
+            this.canonical = canonical;
+        }
+    }
+
+    private static final class Bucket {
+
+        int size;
+        final List<Key> notCanonical = new ArrayList<>(1);
+    }
+
+    private static final class Key {
+
+        private final byte[] fields;
+        private final int hash;
+
+        Key(byte[] fields) {
+            this.fields = fields;
+            this.hash = Arrays.hashCode(fields);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(fields, ((Key) other).fields);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package de.nav.sudoku.generating;
+
+import de.nav.sudoku.batch.ChunkPipeline;
+import de.nav.sudoku.batch.PuzzleOutput;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Generates many Sudokus with a unique solution, optionally spread over several threads.
+ *
+ * Sudokus are generated in chunks through a {@link ChunkPipeline}, each worker thread keeps its own
+ * {@link PuzzleGenerator} for its whole life. Every chunk starts from a seed derived from the seed of the batch
+ * and its position, so the same seed gives the same Sudokus in the same order, no matter how many threads
+ * there are. At most four chunks per thread are generated ahead of the oldest one not yet handed on.
+ *
+ * One instance runs one batch at a time. Call {@link #close()} to stop the worker threads.
+ */
+public class BatchGenerator implements AutoCloseable {
+
+    private static final int CHUNK_SIZE = 16;
+
+    private final int size;
+    private final long seed;
+    private final ChunkPipeline<Chunk> pipeline;
+    private final ThreadLocal<PuzzleGenerator> generators;
+
+    /**
+     * Creates a batch generator for 9 x 9 Sudokus with a random seed.
+     */
+    public BatchGenerator(int threads, int clues, Symmetry symmetry) {
+        this(threads, 9, clues, symmetry, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @param threads number of worker threads; with 1, all Sudokus are generated on the calling thread
+     * @see PuzzleGenerator#PuzzleGenerator(int, int, Symmetry, long)
+     */
+    public BatchGenerator(int threads, int size, int clues, Symmetry symmetry, long seed) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Need at least one thread");
+        this.size = size;
+        this.seed = seed;
+        PuzzleGenerator.checkArguments(size, clues);
+        this.generators = ThreadLocal.withInitial(() -> new PuzzleGenerator(size, clues, symmetry, seed));
+        this.pipeline = new ChunkPipeline<>(threads, 4 * threads, "sudoku-generator-worker");
+    }
+
+    /**
+     * Writes the Sudokus one per line, or packed for files named {@code *.sdkp},
+     * which is only possible for 9 x 9 Sudokus.
+     */
+    public GenerationReport generate(int count, Path output) throws IOException {
+        try (PuzzleOutput writer = PuzzleOutput.open(output)) {
+            return generate(count, writer);
+        }
+    }
+
+    public GenerationReport generate(int count, PuzzleOutput writer) throws IOException {
+        if (size != 9)
+            throw new IllegalStateException("Only 9 x 9 Sudokus can be written, these are " + size + " x " + size);
+        return run(count, chunk -> {
+            for (int i = 0; i < chunk.size; i++)
+                writer.write(chunk.puzzle(i));
+        });
+    }
+
+    /**
+     * Hands the Sudokus to the consumer on the calling thread, each as its fields row by row.
+     */
+    public GenerationReport generate(int count, Consumer<int[]> puzzles) {
+        try {
+            return run(count, chunk -> {
+                for (int i = 0; i < chunk.size; i++)
+                    puzzles.accept(chunk.puzzle(i).clone());
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        pipeline.close();
+    }
+
+    private GenerationReport run(int count, ChunkPipeline.Sink<Chunk> sink) throws IOException {
+        GenerationReport report = new GenerationReport();
+        long start = System.nanoTime();
+        pipeline.run(() -> new Chunk(size * size), (chunk, index) -> {
+            if (index * CHUNK_SIZE >= count)
+                return false;
+            chunk.index = index;
+            chunk.size = (int) Math.min(CHUNK_SIZE, count - index * CHUNK_SIZE);
+            return true;
+        }, this::generateChunk, chunk -> {
+            if (chunk.interrupted)
+                throw new InterruptedIOException("Interrupted while generating Sudokus");
+            report.puzzles += chunk.size;
+            report.grids += chunk.grids;
+            sink.drain(chunk);
+        });
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private void generateChunk(Chunk chunk) {
+        PuzzleGenerator generator = generators.get();
+        generator.setSeed(seed + chunk.index * 0x9E3779B97F4A7C15L);
+        chunk.grids = 0;
+        chunk.interrupted = false;
+        for (int i = 0; i < chunk.size; i++) {
+            do {
+                if (Thread.currentThread().isInterrupted()) {
+                    chunk.interrupted = true;
+                    return;
+                }
+                chunk.grids++;
+            } while (!generator.tryGenerate(chunk.puzzle));
+            System.arraycopy(chunk.puzzle, 0, chunk.puzzles, i * chunk.puzzle.length, chunk.puzzle.length);
+        }
+    }
+
+    private static class Chunk {
+
+        final int[] puzzles;
+        final int[] puzzle;
+        long index;
+        int size;
+        long grids;
+        boolean interrupted;
+
+        Chunk(int fieldCount) {
+            puzzles = new int[CHUNK_SIZE * fieldCount];
+            puzzle = new int[fieldCount];
+        }
+
+        int[] puzzle(int i) {
+            System.arraycopy(puzzles, i * puzzle.length, puzzle, 0, puzzle.length);
+            return puzzle;
+        }
+    }
+
+    public static class GenerationReport {
+
+        long puzzles;
+        long grids;
+        long elapsedNanos;
+
+        public long getPuzzles() {
+            return puzzles;
+        }
+
+        /**
+         * @return the number of full grids it took, more than one per Sudoku if the requested number of givens
+         * could often not be reached
+         */
+        public long getGrids() {
+            return grids;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getPuzzlesPerSecond() {
+            return elapsedNanos == 0 ? 0 : puzzles * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Generated %d puzzles from %d grids in %.3f s (%.0f puzzles/s)",
+                    puzzles, grids, elapsedNanos / 1e9, getPuzzlesPerSecond());
+        }
+    }
+}
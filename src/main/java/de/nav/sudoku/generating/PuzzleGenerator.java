@@ -0,0 +1,212 @@
+package de.nav.sudoku.generating;
+
+import de.nav.sudoku.solving.AdaptiveSolver;
+import de.nav.sudoku.solving.SolveListener;
+import de.nav.sudoku.solving.Solver;
+import de.nav.sudoku.solving.SudokuLayout;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates Sudokus with a unique solution.
+ *
+ * A random full grid is made by filling the boxes on the diagonal, which do not constrain each other,
+ * with random permutations, solving the rest and shuffling the rows and columns within their bands and
+ * stacks as well as the bands and stacks themselves. Givens are then removed in random order, together
+ * with those the {@link Symmetry} pairs them with, and put back if the Sudoku no longer has a unique
+ * solution. Removing stops once the requested number of givens is left.
+ *
+ * Generating is a long series of uniqueness checks on the same Sudoku, so all of them go through one
+ * solver whose state is reused, on a Sudoku that is changed in place. An instance must not be shared
+ * between threads.
+ */
+public class PuzzleGenerator {
+
+    private final int boxSize;
+    private final int size;
+    private final int fieldCount;
+    private final int clues;
+    private final Symmetry symmetry;
+    private final Solver solver;
+    private SplittableRandom random;
+
+    private final int[] grid;
+    private final int[] shuffled;
+    private final int[] rowOrder;
+    private final int[] columnOrder;
+    private final int[] bandOrder;
+    private final int[] removalOrder;
+    private final int[] removed = new int[2];
+
+    public PuzzleGenerator(int clues, Symmetry symmetry) {
+        this(9, clues, symmetry, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @param size     the number of rows, columns and boxes, one of 4, 9, 16 or 25
+     * @param clues    the number of givens to generate Sudokus with, or 0 for as few as the grid allows
+     * @param symmetry how the givens are removed
+     * @param seed     the seed of the random numbers, the same seed generates the same Sudokus
+     */
+    public PuzzleGenerator(int size, int clues, Symmetry symmetry, long seed) {
+        checkArguments(size, clues);
+        solver = new AdaptiveSolver(size, SolveListener.NONE);
+        this.size = size;
+        boxSize = (int) Math.sqrt(size);
+        fieldCount = size * size;
+        this.clues = clues;
+        this.symmetry = symmetry;
+        random = new SplittableRandom(seed);
+
+        grid = new int[fieldCount];
+        shuffled = new int[fieldCount];
+        rowOrder = new int[size];
+        columnOrder = new int[size];
+        bandOrder = new int[boxSize];
+        removalOrder = new int[fieldCount];
+    }
+
+    static void checkArguments(int size, int clues) {
+        int fieldCount = SudokuLayout.ofSize(size).getFieldCount();
+        if (clues < 0 || clues > fieldCount)
+            throw new IllegalArgumentException("Clues must be between 0 and " + fieldCount + ", was " + clues);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Starts the random numbers over, as if the generator was created with this seed.
+     */
+    public void setSeed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Generates Sudokus until one has the requested number of givens.
+     * The fewer givens are requested, the more grids that takes, and it may not end at all if there are too few.
+     *
+     * @return the number of grids it took
+     */
+    public int generate(int[] puzzle) {
+        int grids = 1;
+        while (!tryGenerate(puzzle))
+            grids++;
+        return grids;
+    }
+
+    /**
+     * Generates a Sudoku from one random grid.
+     *
+     * @param puzzle receives the fields of the Sudoku, row by row, 0 for empty ones
+     * @return whether it has the requested number of givens, otherwise removing more would
+     * have made its solution ambiguous
+     */
+    public boolean tryGenerate(int[] puzzle) {
+        fillGrid(puzzle);
+        return removeClues(puzzle) == clues || clues == 0;
+    }
+
+    /**
+     * Fills the puzzle with a random full grid, which is kept as its solution.
+     */
+    void fillGrid(int[] puzzle) {
+        do {
+            Arrays.fill(shuffled, 0);
+            for (int box = 0; box < size; box += boxSize + 1) {
+                shuffle(rowOrder);
+                int firstRow = (box / boxSize) * boxSize;
+                int firstColumn = (box % boxSize) * boxSize;
+                for (int i = 0; i < size; i++)
+                    shuffled[(firstRow + i / boxSize) * size + firstColumn + i % boxSize] = rowOrder[i] + 1;
+            }
+        } while (!solver.solve(shuffled, grid));
+
+        shuffleWithinBands(rowOrder);
+        shuffleWithinBands(columnOrder);
+        for (int row = 0; row < size; row++)
+            for (int col = 0; col < size; col++)
+                puzzle[row * size + col] = grid[rowOrder[row] * size + columnOrder[col]];
+        System.arraycopy(puzzle, 0, grid, 0, fieldCount);
+    }
+
+    /**
+     * Removes givens in random order as long as the solution stays unique, but not below the requested number.
+     *
+     * @return the number of givens left
+     */
+    int removeClues(int[] puzzle) {
+        shuffle(removalOrder);
+        int left = fieldCount;
+        for (int field : removalOrder) {
+            if (left == clues)
+                break;
+            if (puzzle[field] == 0)
+                continue;
+            int count = symmetry.fieldsWith(field, size, removed);
+            if (left - count < clues)
+                continue;
+            for (int i = 0; i < count; i++)
+                puzzle[removed[i]] = 0;
+            if (isForced(puzzle, removed, count) || solver.isUnique(puzzle)) {
+                left -= count;
+            } else {
+                for (int i = 0; i < count; i++)
+                    puzzle[removed[i]] = grid[removed[i]];
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Whether the givens that share a group with each of the emptied fields leave it only one number.
+     * Then removing their givens cannot have made the solution ambiguous, and the solver need not be asked.
+     */
+    private boolean isForced(int[] puzzle, int[] fields, int count) {
+        for (int f = 0; f < count; f++) {
+            int row = fields[f] / size;
+            int col = fields[f] % size;
+            int firstOfBox = (row - row % boxSize) * size + col - col % boxSize;
+            int present = 0;
+            for (int i = 0; i < size; i++)
+                present |= 1 << puzzle[row * size + i]
+                        | 1 << puzzle[i * size + col]
+                        | 1 << puzzle[firstOfBox + i / boxSize * size + i % boxSize];
+            if (Integer.bitCount(present >>> 1) < size - 1)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Fills the order with 0 to size - 1, shuffled within each band of boxSize and with the bands shuffled.
+     */
+    private void shuffleWithinBands(int[] order) {
+        shuffle(bandOrder);
+        for (int band = 0; band < boxSize; band++)
+            for (int i = 0; i < boxSize; i++)
+                order[band * boxSize + i] = bandOrder[band] * boxSize + i;
+        for (int band = 0; band < boxSize; band++)
+            shuffle(order, band * boxSize, boxSize);
+    }
+
+    /**
+     * Fills the values with 0 to their length - 1 in random order.
+     */
+    private void shuffle(int[] values) {
+        for (int i = 0; i < values.length; i++)
+            values[i] = i;
+        shuffle(values, 0, values.length);
+    }
+
+    private void shuffle(int[] values, int from, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int value = values[from + i];
+            values[from + i] = values[from + j];
+            values[from + j] = value;
+        }
+    }
+}
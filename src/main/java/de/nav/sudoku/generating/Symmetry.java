@@ -0,0 +1,50 @@
+package de.nav.sudoku.generating;
+
+/**
+ * Which givens of a generated Sudoku are removed together, so the remaining ones form a pattern.
+ *
+ * On sizes with an even number of rows, {@link #ROTATIONAL} pairs up all fields,
+ * so only even numbers of givens can be generated with it.
+ */
+public enum Symmetry {
+
+    /**
+     * Every given is removed on its own.
+     */
+    NONE,
+    /**
+     * The pattern looks the same after turning the Sudoku by 180 degrees.
+     */
+    ROTATIONAL,
+    /**
+     * The left half of the pattern mirrors the right half.
+     */
+    MIRROR,
+    /**
+     * The pattern is mirrored along the diagonal from the top left to the bottom right.
+     */
+    DIAGONAL;
+
+    /**
+     * Writes the fields that are removed together with the field into fields, the field itself first.
+     *
+     * @param size   the number of rows and columns of the Sudoku
+     * @param fields receives the fields, must have room for 2
+     * @return the number of fields written
+     */
+    int fieldsWith(int field, int size, int[] fields) {
+        int row = field / size;
+        int col = field % size;
+        int other = switch (this) {
+            case NONE -> field;
+            case ROTATIONAL -> size * size - 1 - field;
+            case MIRROR -> row * size + size - 1 - col;
+            case DIAGONAL -> col * size + row;
+        };
+        fields[0] = field;
+        if (other == field)
+            return 1;
+        fields[1] = other;
+        return 2;
+    }
+}
@@ -0,0 +1,147 @@
+package de.nav.sudoku.metrics;
+
+import de.nav.sudoku.solving.SolveListener;
+import de.nav.sudoku.solving.Technique;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sums up what any number of solvers report, from any number of threads.
+ * Meant to be shared by all solvers of a batch and read, and possibly reset, once the batch is done.
+ */
+public class AggregatingSolveListener implements SolveListener {
+
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder solved = new LongAdder();
+    private final LongAdder solveNanos = new LongAdder();
+    private final LongAccumulator maxSolveNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder logicPasses = new LongAdder();
+    private final LongAdder logicSteps = new LongAdder();
+    private final LongAdder[] eliminations = new LongAdder[Technique.values().length];
+    private final LongAdder[] hits = new LongAdder[Technique.values().length];
+    private final LongAdder branches = new LongAdder();
+    private final LongAdder backtracks = new LongAdder();
+    private final LongAccumulator maxLevel = new LongAccumulator(Math::max, 0);
+
+    public AggregatingSolveListener() {
+        for (int i = 0; i < eliminations.length; i++) {
+            eliminations[i] = new LongAdder();
+            hits[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void logicApplied(int level, int steps) {
+        logicPasses.increment();
+        logicSteps.add(steps);
+    }
+
+    @Override
+    public void candidatesEliminated(Technique technique, int count) {
+        eliminations[technique.ordinal()].add(count);
+    }
+
+    @Override
+    public void techniqueHit(Technique technique, int hits) {
+        this.hits[technique.ordinal()].add(hits);
+    }
+
+    @Override
+    public void branched(int level) {
+        branches.increment();
+        maxLevel.accumulate(level);
+    }
+
+    @Override
+    public void backtracked(int level) {
+        backtracks.increment();
+    }
+
+    @Override
+    public void solveFinished(boolean solved, long nanos) {
+        solves.increment();
+        if (solved)
+            this.solved.increment();
+        solveNanos.add(nanos);
+        maxSolveNanos.accumulate(nanos);
+    }
+
+    public long getSolves() {
+        return solves.sum();
+    }
+
+    public long getSolved() {
+        return solved.sum();
+    }
+
+    public long getSolveNanos() {
+        return solveNanos.sum();
+    }
+
+    public long getMaxSolveNanos() {
+        return maxSolveNanos.get();
+    }
+
+    public long getLogicPasses() {
+        return logicPasses.sum();
+    }
+
+    public long getLogicSteps() {
+        return logicSteps.sum();
+    }
+
+    public long getEliminations(Technique technique) {
+        return eliminations[technique.ordinal()].sum();
+    }
+
+    public long getHits(Technique technique) {
+        return hits[technique.ordinal()].sum();
+    }
+
+    public long getBranches() {
+        return branches.sum();
+    }
+
+    public long getBacktracks() {
+        return backtracks.sum();
+    }
+
+    public long getMaxLevel() {
+        return maxLevel.get();
+    }
+
+    /**
+     * Starts counting from zero. Reports that arrive while resetting may be lost.
+     */
+    public void reset() {
+        solves.reset();
+        solved.reset();
+        solveNanos.reset();
+        maxSolveNanos.reset();
+        logicPasses.reset();
+        logicSteps.reset();
+        for (LongAdder adder : eliminations)
+            adder.reset();
+        for (LongAdder adder : hits)
+            adder.reset();
+        branches.reset();
+        backtracks.reset();
+        maxLevel.reset();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        long solves = getSolves();
+        builder.append(String.format("Solves: %d (%d solved), mean %.1fus, max %.1fus%n",
+                solves, getSolved(), solves == 0 ? 0 : getSolveNanos() / 1_000.0 / solves, getMaxSolveNanos() / 1_000.0));
+        builder.append(String.format("Logic: %d pass(es), %d step(s)%n", getLogicPasses(), getLogicSteps()));
+        for (Technique technique : Technique.values())
+            builder.append(String.format("  %s: %d hit(s), %d candidate(s) eliminated%n",
+                    technique, getHits(technique), getEliminations(technique)));
+        builder.append(String.format("Bifurcation: %d branch(es), %d backtrack(s), max level %d",
+                getBranches(), getBacktracks(), getMaxLevel()));
+        return builder.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package de.nav.sudoku.service;
+
+import de.nav.sudoku.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of a {@link SolveService}, updated by its workers and by whoever
+ * completes a request. The histograms are not thread-safe on their own, so each is guarded by itself.
+ */
+class ServiceMetrics {
+
+    final LongAdder accepted = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    private final LongAdder solved = new LongAdder();
+    private final LongAdder unsolvable = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+
+    /**
+     * From submission to completion, whatever the outcome.
+     */
+    private final LatencyHistogram latency = new LatencyHistogram();
+    /**
+     * From submission until a worker started to solve.
+     */
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram solveTime = new LatencyHistogram();
+
+    void recordBatch(int size) {
+        batches.increment();
+        batchedRequests.add(size);
+    }
+
+    void recordSolve(long waitNanos, long solveNanos) {
+        synchronized (queueWait) {
+            queueWait.record(waitNanos);
+        }
+        synchronized (solveTime) {
+            solveTime.record(solveNanos);
+        }
+    }
+
+    /**
+     * @param result null if the request failed or was cancelled
+     */
+    void recordCompletion(SolveService.Result result, long latencyNanos) {
+        if (result == null)
+            failed.increment();
+        else if (result.getStatus() == SolveService.Status.SOLVED)
+            solved.increment();
+        else if (result.getStatus() == SolveService.Status.UNSOLVABLE)
+            unsolvable.increment();
+        else
+            timedOut.increment();
+        synchronized (latency) {
+            latency.record(latencyNanos);
+        }
+    }
+
+    String render(int queueDepth) {
+        StringBuilder out = new StringBuilder();
+        line(out, "accepted", accepted.sum());
+        line(out, "rejected", rejected.sum());
+        line(out, "solved", solved.sum());
+        line(out, "unsolvable", unsolvable.sum());
+        line(out, "timed_out", timedOut.sum());
+        line(out, "failed", failed.sum());
+        line(out, "queue_depth", queueDepth);
+        long batchCount = batches.sum();
+        line(out, "batches", batchCount);
+        out.append(String.format("mean_batch_size %.2f%n", batchCount == 0 ? 0 : (double) batchedRequests.sum() / batchCount));
+        histogram(out, "latency", latency);
+        histogram(out, "queue_wait", queueWait);
+        histogram(out, "solve_time", solveTime);
+        return out.toString();
+    }
+
+    private static void line(StringBuilder out, String name, long value) {
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void histogram(StringBuilder out, String name, LatencyHistogram histogram) {
+        synchronized (histogram) {
+            out.append(name).append(' ').append(histogram.summary()).append('\n');
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package de.nav.sudoku.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.nav.sudoku.batch.PuzzleInput;
+import de.nav.sudoku.batch.PuzzleReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves a {@link SolveService} over HTTP, with Sudokus and solutions in the one-per-line text format:
+ * <ul>
+ *     <li>POST /solve with one Sudoku answers 200 with its solution, 400 if the Sudoku is malformed,
+ *     422 if it has no solution and 504 if its deadline passed.</li>
+ *     <li>POST /solve/batch with one Sudoku per line answers 200 with one line per Sudoku: its solution, or an
+ *     empty line if it is malformed, has no solution or its deadline passed. Batches of more than
+ *     {@code maxBatchSize} Sudokus are answered with 413.</li>
+ *     <li>GET /metrics answers with the counters and latency percentiles of the service.</li>
+ * </ul>
+ * Both solve endpoints take the deadline in milliseconds from the query parameter {@code deadlineMillis},
+ * and answer 503 if the queue of the service is full; a batch is only taken if all of it fits.
+ * Empty lines in a request are skipped. Any other path is answered with 404.
+ *
+ * Handlers only parse and queue the Sudokus. Responses are written once the results are there, by the
+ * threads of the server, so a request waiting for its solution does not hold on to a thread.
+ */
+public class SolveServer implements AutoCloseable {
+
+    private final SolveService service;
+    private final int maxBatchSize;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Starts serving right away.
+     *
+     * @param address      use port 0 for any free port, see {@link #getAddress()}
+     * @param maxBatchSize the most Sudokus one request to /solve/batch may hold
+     */
+    public SolveServer(InetSocketAddress address, SolveService service, int maxBatchSize) throws IOException {
+        this.service = service;
+        this.maxBatchSize = maxBatchSize;
+        this.executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+            Thread thread = new Thread(runnable, "sudoku-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(address, 0);
+        server.createContext("/solve", this::solve);
+        server.createContext("/solve/batch", this::solveBatch);
+        server.createContext("/metrics", this::metrics);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops accepting requests, waiting at most a second for the open ones. Does not close the service.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    private void solve(HttpExchange exchange) throws IOException {
+        if (!expect(exchange, "/solve", "POST"))
+            return;
+        List<int[]> sudokus = new ArrayList<>(1);
+        if (!readSudokus(exchange, sudokus, 1) || sudokus.size() != 1 || sudokus.get(0) == null) {
+            respond(exchange, 400, "Expected a single Sudoku of 81 fields\n");
+            return;
+        }
+        CompletableFuture<SolveService.Result> result;
+        try {
+            result = service.submit(sudokus.get(0), deadlineNanos(exchange));
+        } catch (RejectedExecutionException e) {
+            rejected(exchange);
+            return;
+        }
+        result.whenCompleteAsync((solved, failure) -> {
+            if (failure != null)
+                respondQuietly(exchange, 500, "Failed to solve\n");
+            else if (solved.getStatus() == SolveService.Status.SOLVED)
+                respondQuietly(exchange, 200, format(solved.getSolution()) + "\n");
+            else if (solved.getStatus() == SolveService.Status.UNSOLVABLE)
+                respondQuietly(exchange, 422, "Sudoku has no solution\n");
+            else
+                respondQuietly(exchange, 504, "Deadline passed\n");
+        }, executor);
+    }
+
+    private void solveBatch(HttpExchange exchange) throws IOException {
+        if (!expect(exchange, "/solve/batch", "POST"))
+            return;
+        List<int[]> sudokus = new ArrayList<>();
+        if (!readSudokus(exchange, sudokus, maxBatchSize)) {
+            respond(exchange, 413, "At most " + maxBatchSize + " Sudokus per batch\n");
+            return;
+        }
+        List<int[]> wellFormed = new ArrayList<>(sudokus.size());
+        for (int[] sudoku : sudokus)
+            if (sudoku != null)
+                wellFormed.add(sudoku);
+        List<CompletableFuture<SolveService.Result>> results;
+        try {
+            results = service.submitAll(wellFormed, deadlineNanos(exchange));
+        } catch (RejectedExecutionException e) {
+            rejected(exchange);
+            return;
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).whenCompleteAsync((done, failure) -> {
+            StringBuilder body = new StringBuilder(sudokus.size() * 82);
+            int next = 0;
+            for (int[] sudoku : sudokus) {
+                if (sudoku != null) {
+                    SolveService.Result result = results.get(next++).getNow(null);
+                    if (result != null && result.getStatus() == SolveService.Status.SOLVED)
+                        body.append(format(result.getSolution()));
+                }
+                body.append('\n');
+            }
+            respondQuietly(exchange, 200, body.toString());
+        }, executor);
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        if (expect(exchange, "/metrics", "GET"))
+            respond(exchange, 200, service.getMetrics());
+    }
+
+    /**
+     * Reads one Sudoku per line, adding null for those that are malformed and skipping empty lines.
+     *
+     * @return false if there were more than the given number of Sudokus
+     */
+    private static boolean readSudokus(HttpExchange exchange, List<int[]> sudokus, int max) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            PuzzleReader reader = new PuzzleReader(Channels.newChannel(body));
+            int[] fields = new int[81];
+            int fieldCount;
+            while ((fieldCount = reader.next(fields)) != PuzzleInput.END_OF_INPUT) {
+                if (fieldCount == PuzzleInput.NO_GRID)
+                    continue;
+                if (sudokus.size() == max)
+                    return false;
+                sudokus.add(fieldCount == 81 ? fields.clone() : null);
+            }
+            return true;
+        }
+    }
+
+    private long deadlineNanos(HttpExchange exchange) {
+        URI uri = exchange.getRequestURI();
+        String query = uri.getRawQuery();
+        if (query != null)
+            for (String parameter : query.split("&"))
+                if (parameter.startsWith("deadlineMillis=")) {
+                    try {
+                        long millis = Long.parseLong(parameter.substring("deadlineMillis=".length()));
+                        if (millis > 0)
+                            return TimeUnit.MILLISECONDS.toNanos(millis);
+                    } catch (NumberFormatException e) {
+                        // Fall back to the default
+                    }
+                }
+        return TimeUnit.MILLISECONDS.toNanos(service.getDefaultDeadlineMillis());
+    }
+
+    /**
+     * Answers 404 unless the request is for exactly the path, since a context takes every path it prefixes,
+     * and 405 unless it uses the method.
+     */
+    private static boolean expect(HttpExchange exchange, String path, String method) throws IOException {
+        if (!exchange.getRequestURI().getPath().equals(path)) {
+            respond(exchange, 404, "Not found\n");
+            return false;
+        }
+        if (exchange.getRequestMethod().equals(method))
+            return true;
+        exchange.getResponseHeaders().set("Allow", method);
+        respond(exchange, 405, "Use " + method + "\n");
+        return false;
+    }
+
+    private static void rejected(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        respond(exchange, 503, "Too many Sudokus queued\n");
+    }
+
+    private static String format(int[] fields) {
+        char[] line = new char[81];
+        for (int field = 0; field < 81; field++)
+            line[field] = (char) ('0' + fields[field]);
+        return new String(line);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * For responses written after the handler returned: a client that went away is no one's problem.
+     */
+    private static void respondQuietly(HttpExchange exchange, int status, String body) {
+        try {
+            respond(exchange, status, body);
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+}
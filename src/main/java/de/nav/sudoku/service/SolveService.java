@@ -0,0 +1,215 @@
+package de.nav.sudoku.service;
+
+import de.nav.sudoku.solving.AdaptiveSolver;
+import de.nav.sudoku.solving.SolveResult;
+import de.nav.sudoku.solving.Solver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Solves 9x9 Sudokus submitted from any number of threads on a fixed pool of workers.
+ *
+ * Each worker keeps one {@link Solver} for its whole life. A worker takes all requests waiting in the queue
+ * at once, up to {@code maxBatchSize}, and solves them in a row, so a busy service hands requests over
+ * in batches instead of one by one. The queue holds at most {@code queueCapacity} requests; once it is
+ * full, a submission is rejected right away instead of waiting for room.
+ *
+ * Every request has a deadline. If it passes before the request is solved, its future completes with
+ * {@link Status#TIMED_OUT}, and a worker that only gets to the request afterwards skips it. A solve
+ * that has started gets the time left until the deadline as its budget, see
+ * {@link Solver#solve(int[], int[], java.time.Duration, long)}, so with an engine that keeps to it, a hard
+ * Sudoku gives up its worker soon after its deadline instead of holding it until it is solved.
+ */
+public class SolveService implements AutoCloseable {
+
+    public enum Status {
+        SOLVED, UNSOLVABLE, TIMED_OUT
+    }
+
+    /**
+     * Longer deadlines are cut to this, which is still years, so that adding them to a time cannot overflow.
+     */
+    private static final long MAX_DEADLINE_NANOS = Long.MAX_VALUE / 4;
+
+    private final int maxBatchSize;
+    private final long defaultDeadlineNanos;
+    private final LinkedBlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Semaphore capacity;
+    private final ExecutorService workers;
+    private final ServiceMetrics metrics = new ServiceMetrics();
+
+    /**
+     * Creates a service with one worker per processor, a queue of 1024 requests, batches of up to 64
+     * and a deadline of one second.
+     */
+    public SolveService() {
+        this(Runtime.getRuntime().availableProcessors(), 1024, 64, TimeUnit.SECONDS.toMillis(1));
+    }
+
+    public SolveService(int workerCount, int queueCapacity, int maxBatchSize, long defaultDeadlineMillis) {
+        this(workerCount, queueCapacity, maxBatchSize, defaultDeadlineMillis, AdaptiveSolver::new);
+    }
+
+    /**
+     * @param solvers creates the solver of each worker
+     */
+    public SolveService(int workerCount, int queueCapacity, int maxBatchSize, long defaultDeadlineMillis,
+                        Supplier<Solver> solvers) {
+        if (workerCount < 1 || queueCapacity < 1 || maxBatchSize < 1 || defaultDeadlineMillis < 1)
+            throw new IllegalArgumentException("Need at least one worker, one queued request, batches of one and a deadline");
+        this.maxBatchSize = maxBatchSize;
+        this.defaultDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(defaultDeadlineMillis);
+        this.capacity = new Semaphore(queueCapacity);
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "sudoku-service-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++)
+            workers.execute(() -> work(solvers.get()));
+    }
+
+    public long getDefaultDeadlineMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(defaultDeadlineNanos);
+    }
+
+    public CompletableFuture<Result> submit(int[] sudoku) {
+        return submit(sudoku, defaultDeadlineNanos);
+    }
+
+    /**
+     * @param sudoku        81 fields row by row, 0 for empty ones
+     * @param deadlineNanos time from now on after which the request times out
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<Result> submit(int[] sudoku, long deadlineNanos) {
+        return submitAll(List.of(sudoku), deadlineNanos).get(0);
+    }
+
+    /**
+     * Queues all Sudokus or none of them, with a common deadline.
+     *
+     * @return the results in the order of the Sudokus
+     * @throws RejectedExecutionException if the queue has no room for all of them
+     */
+    public List<CompletableFuture<Result>> submitAll(List<int[]> sudokus, long deadlineNanos) {
+        for (int[] sudoku : sudokus)
+            if (sudoku.length != 81)
+                throw new IllegalArgumentException("Expected 81 fields, got " + sudoku.length);
+        if (!capacity.tryAcquire(sudokus.size())) {
+            metrics.rejected.add(sudokus.size());
+            throw new RejectedExecutionException("Queue has no room for " + sudokus.size() + " more Sudokus");
+        }
+        metrics.accepted.add(sudokus.size());
+        long submitted = System.nanoTime();
+        List<CompletableFuture<Result>> results = new ArrayList<>(sudokus.size());
+        for (int[] sudoku : sudokus) {
+            Request request = new Request(sudoku, submitted, submitted + Math.min(deadlineNanos, MAX_DEADLINE_NANOS));
+            request.completeOnTimeout(new Result(Status.TIMED_OUT, null), deadlineNanos, TimeUnit.NANOSECONDS);
+            request.whenComplete((result, failure) -> metrics.recordCompletion(result, System.nanoTime() - submitted));
+            queue.add(request);
+            results.add(request);
+        }
+        return results;
+    }
+
+    /**
+     * @return counters and latency percentiles, one per line
+     */
+    public String getMetrics() {
+        return metrics.render(queue.size());
+    }
+
+    /**
+     * Stops the workers and cancels all requests that are still queued.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        for (Request request; (request = queue.poll()) != null; )
+            request.cancel(false);
+    }
+
+    private void work(Solver solver) {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        int[] solution = new int[81];
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatchSize - 1);
+                capacity.release(batch.size());
+                metrics.recordBatch(batch.size());
+                for (Request request : batch)
+                    solve(solver, request, solution);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        }
+    }
+
+    private void solve(Solver solver, Request request, int[] solution) {
+        if (request.isDone())
+            return;
+        long start = System.nanoTime();
+        SolveResult solved;
+        try {
+            solved = solver.solve(request.sudoku, solution, Duration.ofNanos(request.deadline - start));
+        } catch (RuntimeException e) {
+            request.completeExceptionally(e);
+            return;
+        }
+        metrics.recordSolve(start - request.submitted, solved.getElapsedNanos());
+        if (solved.isSolved())
+            request.complete(new Result(Status.SOLVED, solution.clone()));
+        else if (solved.getStatus() == SolveResult.Status.UNSOLVABLE)
+            request.complete(new Result(Status.UNSOLVABLE, null));
+        else
+            request.complete(new Result(Status.TIMED_OUT, null));
+    }
+
+    private static class Request extends CompletableFuture<Result> {
+
+        final int[] sudoku;
+        final long submitted;
+        final long deadline;
+
+        Request(int[] sudoku, long submitted, long deadline) {
+            this.sudoku = sudoku;
+            this.submitted = submitted;
+            this.deadline = deadline;
+        }
+    }
+
+    public static class Result {
+
+        private final Status status;
+        private final int[] solution;
+
+        Result(Status status, int[] solution) {
+            this.status = status;
+            this.solution = solution;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the 81 fields of the solution, null unless {@link Status#SOLVED}
+         */
+        public int[] getSolution() {
+            return solution;
+        }
+    }
+}
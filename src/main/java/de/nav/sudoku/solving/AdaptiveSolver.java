@@ -0,0 +1,121 @@
+package de.nav.sudoku.solving;
+
+import java.time.Duration;
+
+/**
+ * Picks the engine for each Sudoku from how much the givens and the logic already settle.
+ *
+ * Sudokus with few givens go straight to the {@link DancingLinksSolver}, since they are either
+ * not uniquely solvable or leave the logic so little to work with that the search of the
+ * {@link SudokuSolver} can branch very deeply. All others get the logic applied first. If it
+ * leaves many fields open, the {@link DancingLinksSolver} takes over from where the logic stopped,
+ * otherwise the {@link SudokuSolver} continues with its own search.
+ *
+ * Both thresholds are fractions of the number of fields, so they hold for every size.
+ */
+public class AdaptiveSolver implements Solver {
+
+    /**
+     * Sudokus with fewer givens than this, per field, are solved by exact cover only.
+     * For 9 x 9 that is up to 17 givens, the fewest a uniquely solvable Sudoku can have.
+     */
+    static final double MIN_GIVENS = 0.22;
+
+    /**
+     * If the logic leaves more fields open than this, per field, exact cover solves the rest.
+     */
+    static final double MAX_LOGIC_RESIDUAL = 0.6;
+
+    private final SudokuSolver logicSolver;
+    private final DancingLinksSolver exactCoverSolver;
+    private final SolveListener listener;
+    private final int minGivens;
+    private final int maxLogicResidual;
+
+    public AdaptiveSolver() {
+        this(9, SolveListener.NONE);
+    }
+
+    /**
+     * @param size     the number of rows, columns and boxes, one of 4, 9, 16 or 25
+     * @param listener gets told about the progress of whichever engine is picked
+     */
+    public AdaptiveSolver(int size, SolveListener listener) {
+        logicSolver = new SudokuSolver(size, null, 0, listener);
+        exactCoverSolver = new DancingLinksSolver(size, listener);
+        this.listener = listener;
+        int fieldCount = logicSolver.layout.fieldCount;
+        minGivens = (int) Math.ceil(MIN_GIVENS * fieldCount);
+        maxLogicResidual = (int) (MAX_LOGIC_RESIDUAL * fieldCount);
+    }
+
+    @Override
+    public int getSize() {
+        return logicSolver.getSize();
+    }
+
+    @Override
+    public boolean solve(int[] sudoku, int[] solution) {
+        if (countGivens(sudoku) < minGivens)
+            return exactCoverSolver.solve(sudoku, solution);
+
+        long start = System.nanoTime();
+        int residual = logicSolver.applyLogic(sudoku);
+        if (residual > maxLogicResidual)
+            return exactCoverSolver.solve(logicSolver.state.solution, solution);
+
+        boolean solved = residual >= 0 && logicSolver.solveAfterLogic(sudoku, solution);
+        listener.solveFinished(solved, System.nanoTime() - start);
+        return solved;
+    }
+
+    /**
+     * The picked engine gets what is left of the timeout once the givens are counted and the logic applied.
+     */
+    @Override
+    public SolveResult solve(int[] sudoku, int[] solution, Duration timeout, long maxNodes) {
+        if (maxNodes < 0)
+            throw new IllegalArgumentException("Node budget must not be negative, was " + maxNodes);
+        if (countGivens(sudoku) < minGivens)
+            return exactCoverSolver.solve(sudoku, solution, timeout, maxNodes);
+
+        long start = System.nanoTime();
+        int residual = logicSolver.applyLogic(sudoku);
+        Duration remaining = timeout == null ? null : timeout.minusNanos(System.nanoTime() - start);
+        if (residual > maxLogicResidual)
+            return exactCoverSolver.solve(logicSolver.state.solution, solution, remaining, maxNodes);
+
+        SolveResult result = residual < 0 ? new SolveResult(SolveResult.Status.UNSOLVABLE, 0, 0, 0)
+                : logicSolver.solveAfterLogic(sudoku, solution, remaining, maxNodes);
+        long elapsed = System.nanoTime() - start;
+        listener.solveFinished(result.isSolved(), elapsed);
+        return new SolveResult(result.getStatus(), result.getNodes(), result.getMaxDepth(), elapsed);
+    }
+
+    /**
+     * Counts by exact cover if there are few givens, otherwise with the {@link SudokuSolver}.
+     */
+    @Override
+    public int countSolutions(int[] sudoku, int limit) {
+        if (countGivens(sudoku) < minGivens)
+            return exactCoverSolver.countSolutions(sudoku, limit);
+        return logicSolver.countSolutions(sudoku, limit);
+    }
+
+    /**
+     * @return the number of givens, or -1 if a field holds a number that is out of range,
+     * which leaves rejecting the Sudoku to the {@link DancingLinksSolver}
+     */
+    private int countGivens(int[] sudoku) {
+        int size = logicSolver.layout.size;
+        int givens = 0;
+        for (int field = 0; field < Math.min(sudoku.length, logicSolver.layout.fieldCount); field++) {
+            int number = sudoku[field];
+            if (number < 0 || number > size)
+                return -1;
+            if (number != 0)
+                givens++;
+        }
+        return givens;
+    }
+}
@@ -0,0 +1,370 @@
+package de.nav.sudoku.solving;
+
+import de.nav.sudoku.solving.util.BitUtil;
+import de.nav.sudoku.solving.util.TableUtil;
+
+import java.util.Arrays;
+
+/**
+ * A Sudoku being filled in by a player, one move at a time.
+ *
+ * The board keeps the candidates of every open field up to date: the numbers that no field in its row, column
+ * or box holds yet. A move only touches the moved field and its peers, and every change goes onto the trail of
+ * a {@link SudokuState}, so {@link #undo()} takes back the last move in time proportional to the number of peers.
+ * The numbers held by each group are kept as bit masks, which is all a move needs to check for conflicts.
+ *
+ * Candidates are returned as meta values, see {@link SudokuSolver}: bit n - 1 is set if number n can go
+ * into the field. Rows and columns count from 0, numbers from 1, and any outside the board throw an
+ * {@link IllegalArgumentException}.
+ *
+ * A board is not thread-safe.
+ */
+public class Board {
+
+    private static final int MOVE_ENTRY_SIZE = 2;
+
+    private final SudokuLayout layout;
+    private final SudokuState state;
+    private final boolean[] given;
+    /**
+     * The numbers held by the fields of each group, as bits.
+     */
+    private final int[] groupNumbers;
+
+    /**
+     * The field and the trail mark before each move, last move last.
+     */
+    private int[] moves = new int[MOVE_ENTRY_SIZE * 64];
+    private int moveCount;
+
+    private SudokuSolver hintSolver;
+    private HardestTechnique hardestTechnique;
+    /**
+     * A solution of the board, valid as long as every number on the board agrees with it.
+     */
+    private int[] knownSolution;
+    private boolean hasKnownSolution;
+
+    /**
+     * @param sudoku the givens, as a table of 4, 9, 16 or 25 rows, 0 for open fields
+     * @throws IllegalArgumentException if the givens hold a number twice in a row, column or box
+     */
+    public Board(int[][] sudoku) {
+        this(sudoku.length, TableUtil.toFields(sudoku, sudoku.length));
+    }
+
+    /**
+     * @param fields the givens row by row, 0 for open fields
+     * @throws IllegalArgumentException if the givens hold a number twice in a row, column or box
+     */
+    public Board(int size, int[] fields) {
+        layout = SudokuLayout.ofSize(size);
+        if (fields.length != layout.fieldCount)
+            throw new IllegalArgumentException("Expected " + layout.fieldCount + " fields, got " + fields.length);
+        state = new SudokuState(layout);
+        given = new boolean[layout.fieldCount];
+        groupNumbers = new int[layout.groupCount];
+        for (int field = 0; field < layout.fieldCount; field++) {
+            int number = fields[field];
+            if (number == 0)
+                continue;
+            if (number < 0 || number > size || (numbersSeenBy(field) & BitUtil.singleBit(number)) != 0)
+                throw new IllegalArgumentException("Invalid given " + number + " in row " + layout.rowOf(field)
+                        + ", column " + layout.columnOf(field));
+            given[field] = true;
+            state.solution[field] = number;
+            addToGroups(field, number);
+        }
+        for (int field = 0; field < layout.fieldCount; field++)
+            if (!given[field])
+                state.metaValues[field] = candidatesOf(field);
+    }
+
+    public int getSize() {
+        return layout.size;
+    }
+
+    /**
+     * @return the number in the field, 0 if it is open
+     */
+    public int get(int row, int col) {
+        return state.solution[field(row, col)];
+    }
+
+    public boolean isGiven(int row, int col) {
+        return given[field(row, col)];
+    }
+
+    /**
+     * @return the numbers that can go into the field as a meta value, 0 if the field holds a number
+     */
+    public int candidates(int row, int col) {
+        return state.metaValues[field(row, col)];
+    }
+
+    /**
+     * @return whether every field holds a number, which is then a solution
+     */
+    public boolean isSolved() {
+        return GridKernel.INSTANCE.isSolved(state.solution);
+    }
+
+    /**
+     * Puts the number into the field, replacing the number the player put there before.
+     *
+     * @return false, leaving the board as it was, if the field is a given or the number is already
+     * in its row, column or box
+     */
+    public boolean place(int row, int col, int number) {
+        if (number < 1 || number > layout.size)
+            throw new IllegalArgumentException("Number " + number + " is not between 1 and " + layout.size);
+        int field = field(row, col);
+        int previous = state.solution[field];
+        if (given[field])
+            return false;
+        if (previous == number)
+            return true;
+        int seen = numbersSeenBy(field) & ~(previous == 0 ? 0 : BitUtil.singleBit(previous));
+        if ((seen & BitUtil.singleBit(number)) != 0)
+            return false;
+
+        startMove(field);
+        if (previous != 0)
+            removeNumber(field, previous);
+        int bit = BitUtil.singleBit(number);
+        state.solveField(field, number);
+        addToGroups(field, number);
+        for (int peer : layout.peers[field])
+            if (state.solution[peer] == 0)
+                state.setMetaValue(peer, state.metaValues[peer] & ~bit);
+        state.resetWork();
+        return true;
+    }
+
+    /**
+     * Takes the number the player put into the field back out.
+     *
+     * @return false if the field is a given or open
+     */
+    public boolean clear(int row, int col) {
+        int field = field(row, col);
+        int number = state.solution[field];
+        if (given[field] || number == 0)
+            return false;
+        startMove(field);
+        removeNumber(field, number);
+        state.resetWork();
+        return true;
+    }
+
+    /**
+     * Takes back the last {@link #place(int, int, int)} or {@link #clear(int, int)} that changed the board.
+     *
+     * @return false if there was nothing to take back
+     */
+    public boolean undo() {
+        if (moveCount == 0)
+            return false;
+        moveCount--;
+        int field = moves[MOVE_ENTRY_SIZE * moveCount];
+        state.undo(moves[MOVE_ENTRY_SIZE * moveCount + 1]);
+        for (int group : layout.groupsOfField[field]) {
+            int numbers = 0;
+            for (int member : layout.groups[group])
+                if (state.solution[member] != 0)
+                    numbers |= BitUtil.singleBit(state.solution[member]);
+            groupNumbers[group] = numbers;
+        }
+        return true;
+    }
+
+    /**
+     * Finds a number that can be put into an open field next, without changing the board.
+     *
+     * The board is checked for a solution first, which only takes a search if a number was placed that does
+     * not agree with the solution found last. Then singles are looked for, a field with a single candidate or
+     * a number with a single field left in a group. Otherwise the logic of the {@link SudokuSolver} runs on
+     * a copy of the board until it leaves a field with a single candidate, and the hint tells the hardest
+     * technique it needed up to then. If the logic gets nowhere, the number is taken from the solution,
+     * for an open field with the fewest candidates.
+     *
+     * @return the hint, or null if the board is full or its numbers leave no solution
+     */
+    public Hint nextHint() {
+        if (!hasSolution())
+            return null;
+        for (int field = 0; field < layout.fieldCount; field++)
+            if (state.solution[field] == 0 && BitUtil.isPowerOfTwo(state.metaValues[field]))
+                return hint(field, state.metaValues[field], Technique.NAKED_SINGLE);
+
+        for (int group = 0; group < layout.groupCount; group++) {
+            int once = 0;
+            int twice = 0;
+            for (int field : layout.groups[group]) {
+                int metaValue = state.metaValues[field];
+                twice |= once & metaValue;
+                once |= metaValue;
+            }
+            int hidden = once & ~twice;
+            if (hidden == 0)
+                continue;
+            int bit = hidden & -hidden;
+            for (int field : layout.groups[group])
+                if ((state.metaValues[field] & bit) != 0)
+                    return hint(field, bit, Technique.HIDDEN_SUBSET);
+        }
+
+        return hintFromSolver();
+    }
+
+    /**
+     * @return whether the numbers on the board still lead to a solution, which is then the known solution
+     */
+    private boolean hasSolution() {
+        if (hasKnownSolution) {
+            boolean agrees = true;
+            for (int field = 0; field < layout.fieldCount && agrees; field++)
+                agrees = state.solution[field] == 0 || state.solution[field] == knownSolution[field];
+            if (agrees)
+                return true;
+        }
+        if (knownSolution == null)
+            knownSolution = new int[layout.fieldCount];
+        hasKnownSolution = hintSolver().solve(state.solution, knownSolution);
+        return hasKnownSolution;
+    }
+
+    private Hint hintFromSolver() {
+        SudokuState copy = hintSolver().state;
+        copy.copyFrom(state);
+        copy.scheduleAll();
+        hardestTechnique.technique = null;
+        if (!hintSolver.propagateToFirstSingle(0))
+            return null;
+        for (int field = 0; field < layout.fieldCount; field++)
+            if (copy.solution[field] == 0 && BitUtil.isPowerOfTwo(copy.metaValues[field]))
+                return hint(field, copy.metaValues[field], hardestTechnique.technique);
+
+        int bestField = -1;
+        for (int field = 0; field < layout.fieldCount; field++)
+            if (state.solution[field] == 0 && (bestField < 0
+                    || Integer.bitCount(state.metaValues[field]) < Integer.bitCount(state.metaValues[bestField])))
+                bestField = field;
+        if (bestField < 0)
+            return null;
+        return hint(bestField, BitUtil.singleBit(knownSolution[bestField]), null);
+    }
+
+    private SudokuSolver hintSolver() {
+        if (hintSolver == null) {
+            hardestTechnique = new HardestTechnique();
+            hintSolver = new SudokuSolver(layout.size, null, 0, hardestTechnique);
+        }
+        return hintSolver;
+    }
+
+    private Hint hint(int field, int bit, Technique technique) {
+        return new Hint(layout.rowOf(field), layout.columnOf(field), Integer.numberOfTrailingZeros(bit) + 1, technique);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the row or column is not on the board
+     */
+    private int field(int row, int col) {
+        if (row < 0 || row >= layout.size || col < 0 || col >= layout.size)
+            throw new IllegalArgumentException("Row " + row + ", column " + col + " is not on the board");
+        return layout.field(row, col);
+    }
+
+    private void startMove(int field) {
+        if (MOVE_ENTRY_SIZE * (moveCount + 1) > moves.length)
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        moves[MOVE_ENTRY_SIZE * moveCount] = field;
+        moves[MOVE_ENTRY_SIZE * moveCount + 1] = state.mark();
+        moveCount++;
+    }
+
+    /**
+     * Opens the field and gives the number back to the peers that no other field of theirs blocks it for.
+     */
+    private void removeNumber(int field, int number) {
+        int bit = BitUtil.singleBit(number);
+        for (int group : layout.groupsOfField[field])
+            groupNumbers[group] &= ~bit;
+        state.solveField(field, 0);
+        state.setMetaValue(field, candidatesOf(field));
+        for (int peer : layout.peers[field])
+            if (state.solution[peer] == 0)
+                state.setMetaValue(peer, candidatesOf(peer));
+    }
+
+    private void addToGroups(int field, int number) {
+        for (int group : layout.groupsOfField[field])
+            groupNumbers[group] |= BitUtil.singleBit(number);
+    }
+
+    private int numbersSeenBy(int field) {
+        int[] groups = layout.groupsOfField[field];
+        return groupNumbers[groups[0]] | groupNumbers[groups[1]] | groupNumbers[groups[2]];
+    }
+
+    private int candidatesOf(int field) {
+        return layout.allCandidates & ~numbersSeenBy(field);
+    }
+
+    /**
+     * Remembers the technique furthest down in {@link Technique} that removed candidates.
+     */
+    private static class HardestTechnique implements SolveListener {
+
+        Technique technique;
+
+        @Override
+        public void candidatesEliminated(Technique technique, int count) {
+            if (this.technique == null || technique.ordinal() > this.technique.ordinal())
+                this.technique = technique;
+        }
+    }
+
+    public static class Hint {
+
+        private final int row;
+        private final int column;
+        private final int number;
+        private final Technique technique;
+
+        Hint(int row, int column, int number, Technique technique) {
+            this.row = row;
+            this.column = column;
+            this.number = number;
+            this.technique = technique;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        /**
+         * @return the hardest technique that removed candidates before the field was left with this number
+         * as its only candidate, {@link Technique#HIDDEN_SUBSET} for a hidden single, or null if it was
+         * taken from a solution found by search
+         */
+        public Technique getTechnique() {
+            return technique;
+        }
+
+        @Override
+        public String toString() {
+            return number + " in row " + row + ", column " + column
+                    + (technique == null ? " by search" : " by " + technique);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package de.nav.sudoku.solving;
+
+import java.time.Duration;
+
+/**
+ * Solves Sudokus as an exact cover problem with Knuth's Algorithm X on dancing links.
+ *
+ * Each row of the matrix stands for one number in one field, and each column for one constraint
+ * that must be met exactly once: every field holds a number, and every row, column and box holds
+ * every number. That makes 4 * 81 = 324 columns and 729 rows of 4 nodes each for a 9 x 9 Sudoku.
+ * Search always continues with the column that the fewest rows can still cover.
+ *
+ * Unlike {@link SudokuSolver}, this engine applies no logic besides that choice, but its effort
+ * hardly depends on how the search happens to branch, which makes it predictable on Sudokus with
+ * few givens. The matrix is built once per instance as flat link arrays, and every solve takes back
+ * all changes it made, so solving allocates nothing.
+ *
+ * The listener is told about every row that is tried as an attempt of a bifurcation.
+ */
+public class DancingLinksSolver implements Solver {
+
+    private static final int ROOT = 0;
+
+    private final SudokuLayout layout;
+    private final SolveListener listener;
+
+    private final int columnCount;
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] columnOfNode;
+    private final int[] columnSize;
+
+    /**
+     * The first node of each row of the matrix, the rows are numbered field * size + number - 1.
+     */
+    private final int[] firstNodeOfRow;
+    /**
+     * The node of each chosen row, the rows of the givens first.
+     */
+    private final int[] chosen;
+    private int[] solution;
+    private final SearchBudget budget = new SearchBudget();
+
+    public DancingLinksSolver() {
+        this(9, SolveListener.NONE);
+    }
+
+    /**
+     * @param size the number of rows, columns and boxes, one of 4, 9, 16 or 25
+     */
+    public DancingLinksSolver(int size, SolveListener listener) {
+        this.layout = SudokuLayout.ofSize(size);
+        this.listener = listener;
+
+        int fieldCount = layout.fieldCount;
+        int rowCount = fieldCount * size;
+        columnCount = 4 * fieldCount;
+        int nodeCount = 1 + columnCount + 4 * rowCount;
+        left = new int[nodeCount];
+        right = new int[nodeCount];
+        up = new int[nodeCount];
+        down = new int[nodeCount];
+        columnOfNode = new int[nodeCount];
+        columnSize = new int[columnCount + 1];
+        firstNodeOfRow = new int[rowCount];
+        chosen = new int[fieldCount];
+
+        for (int column = 0; column <= columnCount; column++) {
+            left[column] = column == 0 ? columnCount : column - 1;
+            right[column] = column == columnCount ? 0 : column + 1;
+            up[column] = column;
+            down[column] = column;
+            columnOfNode[column] = column;
+        }
+
+        int node = columnCount + 1;
+        for (int field = 0; field < fieldCount; field++)
+            for (int number = 0; number < size; number++) {
+                int first = node;
+                firstNodeOfRow[field * size + number] = first;
+                int[] columns = {
+                        1 + field,
+                        1 + fieldCount + layout.rowOf(field) * size + number,
+                        1 + 2 * fieldCount + layout.columnOf(field) * size + number,
+                        1 + 3 * fieldCount + layout.boxOf(field) * size + number
+                };
+                for (int column : columns) {
+                    columnOfNode[node] = column;
+                    up[node] = up[column];
+                    down[node] = column;
+                    down[up[column]] = node;
+                    up[column] = node;
+                    columnSize[column]++;
+                    left[node] = node == first ? first + 3 : node - 1;
+                    right[node] = node == first + 3 ? first : node + 1;
+                    node++;
+                }
+            }
+    }
+
+    @Override
+    public int getSize() {
+        return layout.size;
+    }
+
+    @Override
+    public boolean solve(int[] sudoku, int[] solution) {
+        long start = System.nanoTime();
+        this.solution = solution;
+        boolean solved = run(sudoku, 1) == 1;
+        this.solution = null;
+        listener.solveFinished(solved, System.nanoTime() - start);
+        return solved;
+    }
+
+    /**
+     * The budget is checked before every row that is tried.
+     */
+    @Override
+    public SolveResult solve(int[] sudoku, int[] solution, Duration timeout, long maxNodes) {
+        budget.start(timeout, maxNodes);
+        this.solution = solution;
+        boolean solved;
+        try {
+            solved = run(sudoku, 1) == 1;
+        } finally {
+            this.solution = null;
+            budget.stop();
+        }
+        SolveResult result = budget.result(solved);
+        listener.solveFinished(solved, result.getElapsedNanos());
+        return result;
+    }
+
+    @Override
+    public int countSolutions(int[] sudoku, int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("Limit must be at least 1, was " + limit);
+        long start = System.nanoTime();
+        int found = run(sudoku, limit);
+        listener.solveFinished(found > 0, System.nanoTime() - start);
+        return found;
+    }
+
+    /**
+     * Chooses the rows of the givens, searches and takes back all choices afterwards.
+     *
+     * @return the number of solutions found, at most limit
+     */
+    private int run(int[] sudoku, int limit) {
+        if (sudoku.length < layout.fieldCount)
+            throw new IllegalArgumentException("Expected " + layout.fieldCount + " fields, got " + sudoku.length);
+
+        int givens = 0;
+        boolean valid = true;
+        for (int field = 0; field < layout.fieldCount && valid; field++) {
+            int number = sudoku[field];
+            if (number == 0)
+                continue;
+            if (number < 0 || number > layout.size) {
+                valid = false;
+            } else {
+                int node = firstNodeOfRow[field * layout.size + number - 1];
+                valid = isAvailable(node);
+                if (valid) {
+                    choose(node);
+                    chosen[givens++] = node;
+                }
+            }
+        }
+
+        int found = valid ? search(givens, givens, limit) : 0;
+        for (int i = givens - 1; i >= 0; i--)
+            unchoose(chosen[i]);
+        return found;
+    }
+
+    private int search(int depth, int givens, int limit) {
+        if (right[ROOT] == ROOT) {
+            if (solution != null)
+                writeSolution(depth);
+            return 1;
+        }
+
+        int column = right[ROOT];
+        for (int other = right[column]; other != ROOT && columnSize[column] > 1; other = right[other])
+            if (columnSize[other] < columnSize[column])
+                column = other;
+        if (columnSize[column] == 0)
+            return 0;
+
+        int level = depth - givens + 1;
+        int found = 0;
+        cover(column);
+        for (int node = down[column]; node != column && found < limit; node = down[node]) {
+            if (!budget.tryNode(level))
+                break;
+            listener.branched(level);
+            chosen[depth] = node;
+            for (int other = right[node]; other != node; other = right[other])
+                cover(columnOfNode[other]);
+            int foundInAttempt = search(depth + 1, givens, limit - found);
+            for (int other = left[node]; other != node; other = left[other])
+                uncover(columnOfNode[other]);
+            if (foundInAttempt == 0)
+                listener.backtracked(level);
+            found += foundInAttempt;
+        }
+        uncover(column);
+        return found;
+    }
+
+    /**
+     * A row can be chosen as long as none of its columns are covered. A covered column is no longer
+     * linked from its left neighbour, and only gets linked again when it is uncovered.
+     */
+    private boolean isAvailable(int node) {
+        int other = node;
+        do {
+            int column = columnOfNode[other];
+            if (right[left[column]] != column)
+                return false;
+            other = right[other];
+        } while (other != node);
+        return true;
+    }
+
+    private void choose(int node) {
+        int other = node;
+        do {
+            cover(columnOfNode[other]);
+            other = right[other];
+        } while (other != node);
+    }
+
+    private void unchoose(int node) {
+        int other = node;
+        do {
+            other = left[other];
+            uncover(columnOfNode[other]);
+        } while (other != node);
+    }
+
+    private void cover(int column) {
+        right[left[column]] = right[column];
+        left[right[column]] = left[column];
+        for (int row = down[column]; row != column; row = down[row])
+            for (int node = right[row]; node != row; node = right[node]) {
+                down[up[node]] = down[node];
+                up[down[node]] = up[node];
+                columnSize[columnOfNode[node]]--;
+            }
+    }
+
+    private void uncover(int column) {
+        for (int row = up[column]; row != column; row = up[row])
+            for (int node = left[row]; node != row; node = left[node]) {
+                columnSize[columnOfNode[node]]++;
+                down[up[node]] = node;
+                up[down[node]] = node;
+            }
+        right[left[column]] = column;
+        left[right[column]] = column;
+    }
+
+    private void writeSolution(int depth) {
+        for (int i = 0; i < depth; i++) {
+            int row = (chosen[i] - columnCount - 1) / 4;
+            solution[row / layout.size] = row % layout.size + 1;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package de.nav.sudoku.solving;
+
+/**
+ * Finds fish of one size: as many rows as the size, whose candidates for a number all lie in as many columns.
+ * The number has to go into these columns in these rows, so it is removed from the columns in all other rows.
+ * The same is done with the roles of rows and columns swapped. Size 2 is the X-Wing, size 3 the Swordfish.
+ *
+ * Only lines with at least two and at most as many candidates as the size take part, lines with a single
+ * candidate are left to the hidden singles.
+ */
+class FishStage implements PropagationStage {
+
+    private final SudokuLayout layout;
+    private final int fishSize;
+    private final Technique technique;
+
+    /**
+     * The columns a number can go into, per number and row.
+     */
+    private final int[][] columnsInRow;
+    /**
+     * The rows a number can go into, per number and column.
+     */
+    private final int[][] rowsInColumn;
+
+    FishStage(SudokuLayout layout, int fishSize, Technique technique) {
+        this.layout = layout;
+        this.fishSize = fishSize;
+        this.technique = technique;
+        columnsInRow = new int[layout.size][layout.size];
+        rowsInColumn = new int[layout.size][layout.size];
+    }
+
+    @Override
+    public Technique getTechnique() {
+        return technique;
+    }
+
+    /**
+     * Lines are collected once up front. Candidates removed along the way stay in them, which is still sound:
+     * the number has to go somewhere in each base line, and those places can only have become fewer.
+     */
+    @Override
+    public int apply(SudokuState state) {
+        int size = layout.size;
+        for (int number = 0; number < size; number++)
+            for (int line = 0; line < size; line++) {
+                columnsInRow[number][line] = 0;
+                rowsInColumn[number][line] = 0;
+            }
+        for (int field = 0; field < layout.fieldCount; field++)
+            for (int bits = state.metaValues[field]; bits != 0; bits &= bits - 1) {
+                int number = Integer.numberOfTrailingZeros(bits);
+                columnsInRow[number][layout.rowOf(field)] |= 1 << layout.columnOf(field);
+                rowsInColumn[number][layout.columnOf(field)] |= 1 << layout.rowOf(field);
+            }
+
+        int hits = 0;
+        for (int number = 0; number < size && !state.hasDeadEnd(); number++) {
+            hits += findFish(state, number, columnsInRow[number], true, 0, 0, 0, 0);
+            hits += findFish(state, number, rowsInColumn[number], false, 0, 0, 0, 0);
+        }
+        return hits;
+    }
+
+    /**
+     * Tries every combination of base lines from the given one on, as long as they cover no more lines than the size.
+     */
+    private int findFish(SudokuState state, int number, int[] lines, boolean rowsAreBase,
+                         int from, int baseCount, int baseLines, int coverLines) {
+        if (baseCount == fishSize)
+            return Integer.bitCount(coverLines) == fishSize
+                    ? remove(state, number, rowsAreBase, baseLines, coverLines) : 0;
+
+        int hits = 0;
+        for (int line = from; line < layout.size; line++) {
+            int candidates = lines[line];
+            int count = Integer.bitCount(candidates);
+            if (count < 2 || count > fishSize || Integer.bitCount(coverLines | candidates) > fishSize)
+                continue;
+            hits += findFish(state, number, lines, rowsAreBase,
+                    line + 1, baseCount + 1, baseLines | 1 << line, coverLines | candidates);
+        }
+        return hits;
+    }
+
+    /**
+     * @return 1 if a candidate was removed, 0 otherwise
+     */
+    private int remove(SudokuState state, int number, boolean rowsAreBase, int baseLines, int coverLines) {
+        int bit = 1 << number;
+        int removed = 0;
+        for (int covers = coverLines; covers != 0; covers &= covers - 1) {
+            int cover = Integer.numberOfTrailingZeros(covers);
+            for (int line = 0; line < layout.size; line++) {
+                if ((baseLines & 1 << line) != 0)
+                    continue;
+                int field = rowsAreBase ? layout.field(line, cover) : layout.field(cover, line);
+                int metaValue = state.metaValues[field];
+                if ((metaValue & bit) != 0) {
+                    state.setMetaValue(field, metaValue & ~bit);
+                    removed = 1;
+                }
+            }
+        }
+        return removed;
+    }
+}
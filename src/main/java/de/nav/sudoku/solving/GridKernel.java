@@ -0,0 +1,51 @@
+package de.nav.sudoku.solving;
+
+/**
+ * Operations that go over all fields of a Sudoku, or over all fields of a list, without recording anything
+ * on the trail. They are kept apart so they can run on SIMD instructions where the JVM offers them.
+ *
+ * {@link #INSTANCE} uses the Vector API if the module {@code jdk.incubator.vector} is available, which takes
+ * {@code --add-modules jdk.incubator.vector} on the command line, and plain loops otherwise. The vector kernel
+ * lives in its own source set, which only builds with the {@code vector} profile.
+ * Implementations have no state that changes, so one instance is shared by all threads.
+ */
+interface GridKernel {
+
+    GridKernel INSTANCE = create();
+
+    /**
+     * @return whether no field is empty
+     */
+    boolean isSolved(int[] solution);
+
+    /**
+     * @return whether every empty field still has a candidate
+     */
+    boolean hasNoDeadEnds(int[] solution, int[] metaValues);
+
+    /**
+     * @return whether no number occurs twice in a row, column or box
+     */
+    boolean isValid(SudokuLayout layout, int[] solution);
+
+    /**
+     * Collects the empty fields that are down to a single candidate, in ascending order.
+     *
+     * @return the number of fields written to singles
+     */
+    int collectSingles(int[] solution, int[] metaValues, int[] singles);
+
+    void removeBitsFromFields(int[] metaValues, int[] fields, int bits);
+
+    private static GridKernel create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+            return new ScalarGridKernel();
+        try {
+            // Loaded by name, so the class is never linked if the module is missing
+            return (GridKernel) Class.forName("de.nav.sudoku.solving.VectorGridKernel")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+            return new ScalarGridKernel();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.nav.sudoku.solving;
+
+/**
+ * Finds numbers whose candidates in one group all lie in a single other group, so the number can be removed
+ * from the rest of that other group. For {@link Technique#POINTING}, boxes point into rows and columns,
+ * for {@link Technique#BOX_LINE_REDUCTION}, rows and columns claim a box.
+ */
+class LockedCandidatesStage implements PropagationStage {
+
+    private final SudokuLayout layout;
+    private final Technique technique;
+    private final boolean pointing;
+
+    private final int[] rowsOfNumber;
+    private final int[] columnsOfNumber;
+    private final int[] boxesOfNumber;
+
+    LockedCandidatesStage(SudokuLayout layout, Technique technique) {
+        this.layout = layout;
+        this.technique = technique;
+        this.pointing = technique == Technique.POINTING;
+        rowsOfNumber = new int[layout.size];
+        columnsOfNumber = new int[layout.size];
+        boxesOfNumber = new int[layout.size];
+    }
+
+    @Override
+    public Technique getTechnique() {
+        return technique;
+    }
+
+    @Override
+    public int apply(SudokuState state) {
+        int size = layout.size;
+        int firstGroup = pointing ? 2 * size : 0;
+        int lastGroup = pointing ? 3 * size : 2 * size;
+        int hits = 0;
+        for (int group = firstGroup; group < lastGroup && !state.hasDeadEnd(); group++)
+            hits += applyToGroup(state, group);
+        return hits;
+    }
+
+    private int applyToGroup(SudokuState state, int group) {
+        int size = layout.size;
+        for (int number = 0; number < size; number++) {
+            rowsOfNumber[number] = 0;
+            columnsOfNumber[number] = 0;
+            boxesOfNumber[number] = 0;
+        }
+        for (int field : layout.groups[group])
+            for (int bits = state.metaValues[field]; bits != 0; bits &= bits - 1) {
+                int number = Integer.numberOfTrailingZeros(bits);
+                rowsOfNumber[number] |= 1 << layout.rowOf(field);
+                columnsOfNumber[number] |= 1 << layout.columnOf(field);
+                boxesOfNumber[number] |= 1 << layout.boxOf(field);
+            }
+
+        int hits = 0;
+        for (int number = 0; number < size; number++) {
+            if (pointing) {
+                if (Integer.bitCount(rowsOfNumber[number]) == 1)
+                    hits += removeOutside(state, Integer.numberOfTrailingZeros(rowsOfNumber[number]), group, number);
+                if (Integer.bitCount(columnsOfNumber[number]) == 1)
+                    hits += removeOutside(state, size + Integer.numberOfTrailingZeros(columnsOfNumber[number]), group, number);
+            } else if (Integer.bitCount(boxesOfNumber[number]) == 1) {
+                hits += removeOutside(state, 2 * size + Integer.numberOfTrailingZeros(boxesOfNumber[number]), group, number);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Removes the number from all fields of the target group that are not part of the locking group.
+     *
+     * @return 1 if a candidate was removed, 0 otherwise
+     */
+    private int removeOutside(SudokuState state, int target, int locking, int number) {
+        int bit = 1 << number;
+        int kind = locking / layout.size;
+        int removed = 0;
+        for (int field : layout.groups[target]) {
+            int metaValue = state.metaValues[field];
+            if ((metaValue & bit) != 0 && layout.groupsOfField[field][kind] != locking) {
+                state.setMetaValue(field, metaValue & ~bit);
+                removed = 1;
+            }
+        }
+        return removed;
+    }
+}
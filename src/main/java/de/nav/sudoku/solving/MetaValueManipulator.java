@@ -6,49 +6,72 @@ import java.util.Arrays;
 
 public class MetaValueManipulator {
 
-    protected void initializeMetaValuesWithTable(int[][] table, int[][] metaValueTable) {
-        int defaultMetaValue = 0b111111111;
-        for (int[] row : metaValueTable)
-            Arrays.fill(row, defaultMetaValue);
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                if (table[row][col] != 0 && table[row][col] <= 9) {
-                    metaValueTable[row][col] = 0;
-
-                    int value = table[row][col];
-                    removeBitsFromRow(metaValueTable, row, BitUtil.singleBit(value), false);
-                    removeBitsFromColumn(metaValueTable, col, BitUtil.singleBit(value), false);
-                    removeBitsFromBox(metaValueTable, row, col, BitUtil.singleBit(value), false);
-                }
-            }
+    protected void initializeMetaValuesWithTable(int[][] table, SudokuState state) {
+        SudokuLayout layout = state.layout;
+        if (table.length != layout.size)
+            throw new IllegalArgumentException("Expected " + layout.size + " rows, got " + table.length);
+        for (int[] row : table)
+            if (row.length != layout.size)
+                throw new IllegalArgumentException("Expected " + layout.size + " columns, got " + row.length);
+        resetMetaValues(state);
+        for (int row = 0; row < layout.size; row++)
+            for (int col = 0; col < layout.size; col++)
+                addInitialValue(state, layout.field(row, col), table[row][col]);
+    }
+
+    protected void initializeMetaValues(int[] fields, SudokuState state) {
+        SudokuLayout layout = state.layout;
+        if (fields.length < layout.fieldCount)
+            throw new IllegalArgumentException("Expected " + layout.fieldCount + " fields, got " + fields.length);
+        resetMetaValues(state);
+        for (int field = 0; field < layout.fieldCount; field++)
+            addInitialValue(state, field, fields[field]);
+    }
+
+    private void resetMetaValues(SudokuState state) {
+        int defaultMetaValue = state.layout.allCandidates;
+        state.clear();
+        Arrays.fill(state.metaValues, defaultMetaValue);
+    }
+
+    private void addInitialValue(SudokuState state, int field, int value) {
+        if (value != 0 && value <= state.layout.size) {
+            state.solution[field] = value;
+            state.metaValues[field] = 0;
+            GridKernel.INSTANCE.removeBitsFromFields(state.metaValues, state.layout.peers[field], BitUtil.singleBit(value));
         }
     }
 
-    protected void removeBitsFromRow(int[][] metaValueTable, int row, int value, boolean exceptSelf) {
-        for (int col = 0; col < 9; col++)
-            if (!exceptSelf || metaValueTable[row][col] != value)
-                metaValueTable[row][col] = removeBitsFromMetaValue(metaValueTable[row][col], value);
+    protected void removeBitsFromRow(SudokuState state, int row, int value, boolean exceptSelf) {
+        removeBitsFromGroup(state, state.layout.rows[row], value, exceptSelf);
     }
 
-    protected void removeBitsFromColumn(int[][] metaValueTable, int col, int value, boolean exceptSelf) {
-        for (int row = 0; row < 9; row++)
-            if (!exceptSelf || metaValueTable[row][col] != value)
-                metaValueTable[row][col] = removeBitsFromMetaValue(metaValueTable[row][col], value);
+    protected void removeBitsFromColumn(SudokuState state, int col, int value, boolean exceptSelf) {
+        removeBitsFromGroup(state, state.layout.columns[col], value, exceptSelf);
     }
 
-    protected void removeBitsFromBox(int[][] metaValueTable, int row, int col, int value, boolean exceptSelf) {
-        int cornerRow = (row / 3) * 3;
-        int cornerCol = (col / 3) * 3;
-        for (int colIncrement = 0; colIncrement < 3; colIncrement++)
-            for (int rowIncrement = 0; rowIncrement < 3; rowIncrement++) {
-                int currentValue = metaValueTable[cornerRow + rowIncrement][cornerCol + colIncrement];
-                if (!exceptSelf || currentValue != value)
-                    metaValueTable[cornerRow + rowIncrement][cornerCol + colIncrement] =
-                            removeBitsFromMetaValue(currentValue, value);
-            }
+    protected void removeBitsFromBox(SudokuState state, int row, int col, int value, boolean exceptSelf) {
+        SudokuLayout layout = state.layout;
+        removeBitsFromGroup(state, layout.boxes[layout.boxOf(layout.field(row, col))], value, exceptSelf);
+    }
+
+    /**
+     * Removes the bits from all fields that share a row, column or box with the field, but not from the field itself.
+     */
+    protected void removeBitsFromPeers(SudokuState state, int field, int value) {
+        for (int peer : state.layout.peers[field])
+            state.setMetaValue(peer, removeBitsFromMetaValue(state.metaValues[peer], value));
     }
 
     protected int removeBitsFromMetaValue(int metaValue, int bits) {
         return (~bits & metaValue);
     }
-}
\ No newline at end of file
+
+    protected void removeBitsFromGroup(SudokuState state, int[] group, int value, boolean exceptSelf) {
+        for (int field : group) {
+            int metaValue = state.metaValues[field];
+            if (!exceptSelf || metaValue != value)
+                state.setMetaValue(field, removeBitsFromMetaValue(metaValue, value));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package de.nav.sudoku.solving;
+
+/**
+ * A logic technique that looks at more than one group at a time. The {@link SudokuSolver} runs its stages
+ * in order once singles and subsets within the dirty groups have nothing left to do, and goes back to those
+ * as soon as a stage removed candidates.
+ *
+ * Stages remove candidates only through {@link SudokuState#setMetaValue(int, int)}, so their changes are
+ * taken back with the rest of an attempt. A stage keeps buffers and belongs to a single solver.
+ */
+interface PropagationStage {
+
+    Technique getTechnique();
+
+    /**
+     * @return how often candidates were removed, 0 if the stage found nothing
+     */
+    int apply(SudokuState state);
+
+    /**
+     * @throws IllegalArgumentException for techniques that are part of the solver itself and not a stage
+     */
+    static PropagationStage of(Technique technique, SudokuLayout layout) {
+        return switch (technique) {
+            case POINTING, BOX_LINE_REDUCTION -> new LockedCandidatesStage(layout, technique);
+            case X_WING -> new FishStage(layout, 2, technique);
+            case SWORDFISH -> new FishStage(layout, 3, technique);
+            default -> throw new IllegalArgumentException(technique + " is always applied and cannot be used as a stage");
+        };
+    }
+}
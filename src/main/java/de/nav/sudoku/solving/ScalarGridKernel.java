@@ -0,0 +1,57 @@
+package de.nav.sudoku.solving;
+
+import de.nav.sudoku.solving.util.BitUtil;
+
+/**
+ * {@link GridKernel} with plain loops, one field at a time.
+ */
+class ScalarGridKernel implements GridKernel {
+
+    @Override
+    public boolean isSolved(int[] solution) {
+        for (int number : solution)
+            if (number == 0)
+                return false;
+        return true;
+    }
+
+    @Override
+    public boolean hasNoDeadEnds(int[] solution, int[] metaValues) {
+        for (int field = 0; field < solution.length; field++)
+            if (solution[field] == 0 && metaValues[field] == 0)
+                return false;
+        return true;
+    }
+
+    @Override
+    public boolean isValid(SudokuLayout layout, int[] solution) {
+        for (int[] group : layout.groups) {
+            int numbersPresent = 0;
+            for (int field : group) {
+                int number = solution[field];
+                if (number > 0) {
+                    int bit = 1 << (number - 1);
+                    if ((numbersPresent & bit) != 0)
+                        return false;
+                    numbersPresent |= bit;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int collectSingles(int[] solution, int[] metaValues, int[] singles) {
+        int count = 0;
+        for (int field = 0; field < solution.length; field++)
+            if (solution[field] == 0 && BitUtil.isPowerOfTwo(metaValues[field]))
+                singles[count++] = field;
+        return count;
+    }
+
+    @Override
+    public void removeBitsFromFields(int[] metaValues, int[] fields, int bits) {
+        for (int field : fields)
+            metaValues[field] &= ~bits;
+    }
+}
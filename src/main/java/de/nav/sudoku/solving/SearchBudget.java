@@ -0,0 +1,74 @@
+package de.nav.sudoku.solving;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The limits of a budgeted solve, see {@link Solver#solve(int[], int[], Duration, long)}, and how much of them
+ * the search used. Each engine keeps one for its whole life. Without limits, every attempt is allowed.
+ */
+final class SearchBudget {
+
+    private long start;
+    private boolean hasDeadline;
+    private long deadline;
+    private long maxNodes = Long.MAX_VALUE;
+    private boolean exceeded;
+    private long nodes;
+    private int maxDepth;
+
+    /**
+     * Sets the limits of a solve starting now, and starts counting from 0.
+     *
+     * @param timeout  null for no limit
+     * @param maxNodes {@link Long#MAX_VALUE} for no limit
+     */
+    void start(Duration timeout, long maxNodes) {
+        if (maxNodes < 0)
+            throw new IllegalArgumentException("Node budget must not be negative, was " + maxNodes);
+        start = System.nanoTime();
+        long timeoutNanos = timeout == null ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.convert(timeout);
+        hasDeadline = timeoutNanos < Long.MAX_VALUE / 2;
+        deadline = start + timeoutNanos;
+        this.maxNodes = maxNodes;
+        exceeded = false;
+        nodes = 0;
+        maxDepth = 0;
+    }
+
+    /**
+     * Lifts the limits again, keeping what was counted for {@link #result(boolean)}.
+     */
+    void stop() {
+        hasDeadline = false;
+        maxNodes = Long.MAX_VALUE;
+    }
+
+    boolean isLimited() {
+        return hasDeadline || maxNodes != Long.MAX_VALUE;
+    }
+
+    /**
+     * Counts an attempt of a bifurcation at the given level, unless it would exceed the budget.
+     * Once exceeded, the budget stays exceeded until it is started again, so every level of a search
+     * can stop on this check.
+     *
+     * @return false if the search must stop
+     */
+    boolean tryNode(int level) {
+        if (nodes >= maxNodes || hasDeadline && System.nanoTime() - deadline > 0) {
+            exceeded = true;
+            return false;
+        }
+        nodes++;
+        if (level > maxDepth)
+            maxDepth = level;
+        return true;
+    }
+
+    SolveResult result(boolean solved) {
+        SolveResult.Status status = solved ? SolveResult.Status.SOLVED
+                : exceeded ? SolveResult.Status.BUDGET_EXCEEDED : SolveResult.Status.UNSOLVABLE;
+        return new SolveResult(status, nodes, maxDepth, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,82 @@
+package de.nav.sudoku.solving;
+
+import java.util.Arrays;
+
+/**
+ * Checks whether a filled in grid is a solution of a Sudoku, for example one submitted by a player.
+ *
+ * All checks happen in a single pass over the fields row by row: each field must hold a number from 1 to n,
+ * the given number if the Sudoku has one there, and a number not yet seen in its row, column or box.
+ * The numbers seen so far are kept as bit masks per row, column and box, held by the validator,
+ * so validating does not allocate.
+ *
+ * A validator is not thread-safe.
+ */
+public class SolutionValidator {
+
+    /**
+     * Returned by {@link #firstConflict(int[], int[])} for a grid that is a solution.
+     */
+    public static final int VALID = -1;
+
+    private final SudokuLayout layout;
+    private final int[] columnNumbers;
+    private final int[] boxNumbers;
+
+    public SolutionValidator() {
+        this(9);
+    }
+
+    public SolutionValidator(int size) {
+        layout = SudokuLayout.ofSize(size);
+        columnNumbers = new int[size];
+        boxNumbers = new int[size];
+    }
+
+    public int getSize() {
+        return layout.size;
+    }
+
+    public boolean isSolution(int[] sudoku, int[] grid) {
+        return firstConflict(sudoku, 0, grid, 0) == VALID;
+    }
+
+    /**
+     * @param sudoku the givens row by row, 0 for open fields
+     * @param grid   the numbers of all fields row by row
+     * @return {@link #VALID} if the grid is a solution of the Sudoku, otherwise the first field in row order that
+     * is open, holds a number out of range, differs from its given or repeats a number of an earlier field
+     * in its row, column or box
+     */
+    public int firstConflict(int[] sudoku, int[] grid) {
+        return firstConflict(sudoku, 0, grid, 0);
+    }
+
+    /**
+     * Same as {@link #firstConflict(int[], int[])} for a Sudoku and a grid that start at the given offsets,
+     * as in the buffers of a batch.
+     */
+    public int firstConflict(int[] sudoku, int sudokuOffset, int[] grid, int gridOffset) {
+        int size = layout.size;
+        Arrays.fill(columnNumbers, 0);
+        Arrays.fill(boxNumbers, 0);
+        int field = 0;
+        for (int row = 0; row < size; row++) {
+            int rowNumbers = 0;
+            for (int col = 0; col < size; col++, field++) {
+                int number = grid[gridOffset + field];
+                int given = sudoku[sudokuOffset + field];
+                if (number < 1 || number > size || given != 0 && given != number)
+                    return field;
+                int bit = 1 << (number - 1);
+                int box = layout.boxOf(field);
+                if (((rowNumbers | columnNumbers[col] | boxNumbers[box]) & bit) != 0)
+                    return field;
+                rowNumbers |= bit;
+                columnNumbers[col] |= bit;
+                boxNumbers[box] |= bit;
+            }
+        }
+        return VALID;
+    }
+}
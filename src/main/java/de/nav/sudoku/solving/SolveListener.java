@@ -0,0 +1,60 @@
+package de.nav.sudoku.solving;
+
+/**
+ * Gets told what a {@link Solver} does while solving. All methods do nothing by default.
+ * The {@link DancingLinksSolver} applies no logic, it only reports its attempts and finished solves.
+ *
+ * A solver that searches in parallel calls its listener from several threads at once.
+ * The calls happen inside the search, so implementations should be quick and must not block.
+ */
+public interface SolveListener {
+
+    SolveListener NONE = new SolveListener() {
+    };
+
+    /**
+     * Called after each logic pass, which runs once at the start and once after every attempt of a bifurcation.
+     *
+     * @param level the bifurcation level the pass ran on, 0 before the first bifurcation
+     * @param steps the number of singles solved and groups checked
+     */
+    default void logicApplied(int level, int steps) {
+    }
+
+    /**
+     * Called after each logic pass for each technique that removed candidates during it.
+     */
+    default void candidatesEliminated(Technique technique, int count) {
+    }
+
+    /**
+     * Called after each logic pass for each technique that removed candidates during it, with how often it did.
+     * A hit is one step of the technique that removed candidates: solving a single, checking a group,
+     * or a pattern found by a stage like {@link Technique#X_WING}.
+     */
+    default void techniqueHit(Technique technique, int hits) {
+    }
+
+    /**
+     * Called for every attempt of a bifurcation, before it is searched.
+     *
+     * @param level the bifurcation level of the attempt, starting at 1
+     */
+    default void branched(int level) {
+    }
+
+    /**
+     * Called for every attempt of a bifurcation that did not lead to a solution and was taken back.
+     */
+    default void backtracked(int level) {
+    }
+
+    /**
+     * Called at the end of every call to solve or countSolutions.
+     *
+     * @param solved whether at least one solution was found
+     * @param nanos  how long the call took
+     */
+    default void solveFinished(boolean solved, long nanos) {
+    }
+}
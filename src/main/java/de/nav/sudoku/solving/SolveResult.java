@@ -0,0 +1,63 @@
+package de.nav.sudoku.solving;
+
+/**
+ * Outcome of a solve with a budget, see {@link Solver#solve(int[], int[], java.time.Duration, long)},
+ * together with how much search it took up to the point it stopped.
+ */
+public class SolveResult {
+
+    public enum Status {
+        SOLVED,
+        /**
+         * The whole search ran without finding a solution, so there is none.
+         */
+        UNSOLVABLE,
+        /**
+         * The deadline passed or the search tried as many numbers as it was allowed to before it was done.
+         */
+        BUDGET_EXCEEDED
+    }
+
+    private final Status status;
+    private final long nodes;
+    private final int maxDepth;
+    private final long elapsedNanos;
+
+    public SolveResult(Status status, long nodes, int maxDepth, long elapsedNanos) {
+        this.status = status;
+        this.nodes = nodes;
+        this.maxDepth = maxDepth;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /**
+     * @return the number of attempts of bifurcations, each a number tried in a field
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the deepest bifurcation level reached, 0 if the logic alone decided
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s after %d nodes, depth %d, %.1f us", status, nodes, maxDepth, elapsedNanos / 1_000.0);
+    }
+}
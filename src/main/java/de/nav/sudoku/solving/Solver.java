@@ -0,0 +1,85 @@
+package de.nav.sudoku.solving;
+
+import de.nav.sudoku.solving.util.TableUtil;
+
+import java.time.Duration;
+
+/**
+ * An engine that solves Sudokus of one size, given either as a table or as their fields row by row with 0 for empty ones.
+ *
+ * Implementations keep their working state between calls to avoid allocating while solving,
+ * so an instance must not be used by more than one thread at a time.
+ */
+public interface Solver {
+
+    /**
+     * @return the number of rows, columns and boxes of the Sudokus this solver takes
+     */
+    int getSize();
+
+    /**
+     * @param sudoku   the fields of the Sudoku row by row, 0 for empty ones
+     * @param solution receives the fields of the solution, if there is one
+     * @return whether a solution was found
+     */
+    boolean solve(int[] sudoku, int[] solution);
+
+    /**
+     * Same as {@link #solve(int[], int[])}, but gives up once the timeout passed or the search tried maxNodes
+     * numbers, whichever comes first. Engines that cannot stop early solve without the budget.
+     *
+     * @param timeout  the time from now on the solve may take, null for no limit
+     * @param maxNodes the number of attempts the search may make, {@link Long#MAX_VALUE} for no limit
+     * @return whether the Sudoku was solved, has no solution or the budget ran out, with how far the search got
+     */
+    default SolveResult solve(int[] sudoku, int[] solution, Duration timeout, long maxNodes) {
+        if (maxNodes < 0)
+            throw new IllegalArgumentException("Node budget must not be negative, was " + maxNodes);
+        long start = System.nanoTime();
+        boolean solved = solve(sudoku, solution);
+        return new SolveResult(solved ? SolveResult.Status.SOLVED : SolveResult.Status.UNSOLVABLE, 0, 0,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Same as {@link #solve(int[], int[], Duration, long)} with a deadline only.
+     */
+    default SolveResult solve(int[] sudoku, int[] solution, Duration timeout) {
+        return solve(sudoku, solution, timeout, Long.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #solve(int[], int[], Duration, long)} with a most number of attempts only.
+     */
+    default SolveResult solve(int[] sudoku, int[] solution, long maxNodes) {
+        return solve(sudoku, solution, null, maxNodes);
+    }
+
+    /**
+     * Counts the solutions of a Sudoku, but stops counting once the limit is reached.
+     *
+     * @param limit the count at which to stop, 2 is enough to tell whether a Sudoku has a unique solution
+     * @return the number of solutions, but at most limit
+     */
+    int countSolutions(int[] sudoku, int limit);
+
+    /**
+     * @return the solved table, or null if the Sudoku has no solution
+     */
+    default int[][] solve(int[][] sudoku) {
+        int[] solution = new int[getSize() * getSize()];
+        return solve(TableUtil.toFields(sudoku, getSize()), solution) ? TableUtil.toTable(solution, getSize()) : null;
+    }
+
+    default int countSolutions(int[][] sudoku, int limit) {
+        return countSolutions(TableUtil.toFields(sudoku, getSize()), limit);
+    }
+
+    default boolean isUnique(int[] sudoku) {
+        return countSolutions(sudoku, 2) == 1;
+    }
+
+    default boolean isUnique(int[][] sudoku) {
+        return countSolutions(sudoku, 2) == 1;
+    }
+}
@@ -0,0 +1,140 @@
+package de.nav.sudoku.solving;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed index tables for Sudokus of one size.
+ *
+ * A Sudoku of size n has n rows, n columns and n boxes of n fields each, and the numbers 1 to n.
+ * Its fields are addressed by a single index from 0 to n * n - 1, counted row by row.
+ * The groups (rows, columns and boxes) are lists of those indices, where the fields of a box are
+ * ordered row by row as well. {@link #groups} holds all 3 * n of them: the rows first, then the
+ * columns, then the boxes. The peers of a field are all other fields that share a group with it.
+ *
+ * Meta values are int bit masks, which limits the size to 25 (boxes of 5 x 5).
+ * The layouts are created once per size and shared.
+ */
+public final class SudokuLayout {
+
+    public static final SudokuLayout NINE = new SudokuLayout(3);
+
+    private static final SudokuLayout[] LAYOUTS = {
+            new SudokuLayout(2), NINE, new SudokuLayout(4), new SudokuLayout(5)
+    };
+
+    final int boxSize;
+    final int size;
+    final int fieldCount;
+    final int groupCount;
+    final int allCandidates;
+
+    final int[][] rows;
+    final int[][] columns;
+    final int[][] boxes;
+    final int[][] groups;
+    final int[][] peers;
+    /**
+     * The indices into {@link #groups} of the row, column and box of each field.
+     */
+    final int[][] groupsOfField;
+    /**
+     * The bits of the groups of each field, for the groups 0 to 63 and the groups from 64 on.
+     */
+    final long[] groupMasks;
+    final long[] highGroupMasks;
+
+    private final int[] rowOf;
+    private final int[] columnOf;
+    private final int[] boxOf;
+
+    private SudokuLayout(int boxSize) {
+        this.boxSize = boxSize;
+        size = boxSize * boxSize;
+        fieldCount = size * size;
+        groupCount = 3 * size;
+        allCandidates = (1 << size) - 1;
+
+        rows = new int[size][size];
+        columns = new int[size][size];
+        boxes = new int[size][size];
+        rowOf = new int[fieldCount];
+        columnOf = new int[fieldCount];
+        boxOf = new int[fieldCount];
+        for (int row = 0; row < size; row++)
+            for (int col = 0; col < size; col++) {
+                int field = row * size + col;
+                int box = (row / boxSize) * boxSize + col / boxSize;
+                rows[row][col] = field;
+                columns[col][row] = field;
+                boxes[box][(row % boxSize) * boxSize + col % boxSize] = field;
+                rowOf[field] = row;
+                columnOf[field] = col;
+                boxOf[field] = box;
+            }
+
+        groups = new int[groupCount][];
+        for (int i = 0; i < size; i++) {
+            groups[i] = rows[i];
+            groups[size + i] = columns[i];
+            groups[2 * size + i] = boxes[i];
+        }
+
+        groupsOfField = new int[fieldCount][];
+        peers = new int[fieldCount][];
+        groupMasks = new long[fieldCount];
+        highGroupMasks = new long[fieldCount];
+        for (int field = 0; field < fieldCount; field++) {
+            int self = field;
+            groupsOfField[field] = new int[]{rowOf[field], size + columnOf[field], 2 * size + boxOf[field]};
+            for (int group : groupsOfField[field])
+                if (group < 64)
+                    groupMasks[field] |= 1L << group;
+                else
+                    highGroupMasks[field] |= 1L << (group - 64);
+            peers[field] = Arrays.stream(groupsOfField[field])
+                    .flatMap(group -> Arrays.stream(groups[group]))
+                    .filter(peer -> peer != self)
+                    .distinct()
+                    .sorted()
+                    .toArray();
+        }
+    }
+
+    /**
+     * @param size the number of fields per group, one of 4, 9, 16 or 25
+     */
+    public static SudokuLayout ofSize(int size) {
+        for (SudokuLayout layout : LAYOUTS)
+            if (layout.size == size)
+                return layout;
+        throw new IllegalArgumentException("Unsupported Sudoku size " + size + ", must be 4, 9, 16 or 25");
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public int field(int row, int col) {
+        return row * size + col;
+    }
+
+    public int rowOf(int field) {
+        return rowOf[field];
+    }
+
+    public int columnOf(int field) {
+        return columnOf[field];
+    }
+
+    public int boxOf(int field) {
+        return boxOf[field];
+    }
+}
@@ -1,11 +1,17 @@
 package de.nav.sudoku.solving;
 
 import de.nav.sudoku.solving.util.BitUtil;
-import de.nav.sudoku.solving.util.FrequencyMapUtil;
-import de.nav.sudoku.solving.util.TableUtil;
-import de.nav.sudoku.solving.util.InverseMetaValueUtil;
 
-import java.util.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Core concepts needed to understand the code:
@@ -23,239 +29,681 @@ import java.util.*;
  * Sudoku table.
  * An inverse meta value of decimal 22 / binary 10110 would mean, that it's corresponding number
  * can still go into the fields 2, 3 and 5 of the corresponding group (row, column or box).
+ *
+ * All values are kept in a flat {@link SudokuState} that is reused across calls. Every change to
+ * a meta value marks the row, column and box of its field as dirty, and the logic only revisits
+ * dirty groups until none are left. Bifurcation changes that state in place and takes
+ * unsuccessful attempts back through its trail, so a solver instance does not copy tables
+ * while solving, but must not be shared between threads.
+ *
+ * Bifurcation runs on an explicit stack of frames allocated with the solver, one per level, so however
+ * deep the search goes, it does not grow the stack of the thread. Optionally, the attempts of the first
+ * levels of bifurcation run in parallel on a {@link ForkJoinPool}, each on its own copy of the state.
+ * The first attempt that finds a solution cancels all others. Attempts run on solvers kept per worker thread
+ * and level, so forking copies the state into a solver created once rather than creating a new one.
+ *
+ * A solve can be given a budget, a deadline and a most number of attempts, after which it gives up,
+ * see {@link Solver#solve(int[], int[], Duration, long)}.
+ *
+ * Once singles and subsets within single groups are exhausted, the logic runs its stages, techniques
+ * that look at more than one group at a time. They run in the order given, the first one that removes
+ * candidates hands back to the cheaper steps. By default these are {@link #DEFAULT_STAGES}.
+ *
+ * What the solver does can be followed through a {@link SolveListener}, which by default ignores everything.
+ *
+ * Besides the classic 9 x 9 Sudoku, a solver can be created for the sizes 4, 16 and 25, see {@link SudokuLayout}.
+ * Sudokus are then given with as many rows and columns, or fields, as that size requires.
  */
-public class SudokuSolver {
+public class SudokuSolver implements Solver {
+
+    /**
+     * Attempts are only forked while at least this many fields are open, smaller searches are not worth it.
+     */
+    private static final int MIN_OPEN_FIELDS_TO_FORK = 30;
+
+    private static final Technique[] TECHNIQUES = Technique.values();
+
+    /**
+     * All stages, cheapest first.
+     */
+    public static final List<Technique> DEFAULT_STAGES =
+            List.of(Technique.POINTING, Technique.BOX_LINE_REDUCTION, Technique.X_WING, Technique.SWORDFISH);
+
+    final SudokuLayout layout;
+    final SudokuState state;
+    private final MetaValueManipulator metaValueManipulator = new MetaValueManipulator();
+    private final SudokuChecker sudokuChecker = new SudokuChecker();
+
+    private final int[] groupMetaValues;
+    private final int[] inverseMetaValues;
+    private final List<Technique> stageTechniques;
+    final PropagationStage[] stages;
+    private final long[] eliminations = new long[TECHNIQUES.length];
+    private final int[] hits = new int[TECHNIQUES.length];
+
+    /**
+     * The frames of the search, one per bifurcation level from where it started: the field bifurcated on,
+     * its candidates not tried yet and the trail mark to go back to before trying the next one.
+     */
+    private final int[] frameFields;
+    private final int[] frameCandidates;
+    private final int[] frameMarks;
+
+    private final ForkJoinPool pool;
+    private final int parallelLevels;
+    private final WorkerSolvers workerSolvers;
+    /**
+     * Whether an attempt is running on this solver, which then must not be handed to another one.
+     */
+    private boolean inAttempt;
+    private final SolveListener listener;
+    private AtomicBoolean cancellation;
+    private final SearchBudget budget = new SearchBudget();
+
+    public SudokuSolver() {
+        this(SolveListener.NONE);
+    }
 
-    int[][] initialTable;
-    int[][] solutionTable;
-    int[][] metaValueTable;
+    public SudokuSolver(SolveListener listener) {
+        this(null, 0, listener);
+    }
 
-    private MetaValueManipulator metaValueManipulator;
+    public SudokuSolver(ForkJoinPool pool, int parallelLevels) {
+        this(pool, parallelLevels, SolveListener.NONE);
+    }
 
-    int level;
+    /**
+     * Creates a solver that runs the attempts of the first levels of bifurcation in parallel.
+     *
+     * @param pool           the pool to run the attempts on
+     * @param parallelLevels number of bifurcation levels whose attempts are forked, deeper levels are searched sequentially
+     * @param listener       gets told about the progress, from all threads of the pool
+     */
+    public SudokuSolver(ForkJoinPool pool, int parallelLevels, SolveListener listener) {
+        this(SudokuLayout.NINE, pool, parallelLevels, listener, DEFAULT_STAGES, null);
+    }
 
-    public int[][] solve(int[][] sudoku, int level) {
-        initialTable = sudoku;
-        this.level = level;
-        solutionTable = TableUtil.copyTable(initialTable);
-        metaValueTable = new int[9][9];
+    /**
+     * Creates a solver for Sudokus of another size than 9 x 9.
+     *
+     * @param size the number of rows, columns and boxes, one of 4, 9, 16 or 25
+     */
+    public SudokuSolver(int size) {
+        this(size, null, 0, SolveListener.NONE);
+    }
 
-        metaValueManipulator = new MetaValueManipulator();
-        metaValueManipulator.initializeMetaValuesWithTable(initialTable, metaValueTable);
+    public SudokuSolver(int size, ForkJoinPool pool, int parallelLevels, SolveListener listener) {
+        this(size, pool, parallelLevels, listener, DEFAULT_STAGES);
+    }
 
-        SudokuChecker sudokuChecker = new SudokuChecker();
+    /**
+     * Creates a solver that runs its own choice of stages.
+     *
+     * @param stages the techniques from {@link Technique#POINTING} on to run, in this order, none to leave it
+     *               to singles, subsets and bifurcation
+     */
+    public SudokuSolver(int size, ForkJoinPool pool, int parallelLevels, SolveListener listener, List<Technique> stages) {
+        this(SudokuLayout.ofSize(size), pool, parallelLevels, listener, stages, null);
+    }
 
-        if (!sudokuChecker.hasNoDeadEnds(solutionTable, metaValueTable))
-            return null;
+    private SudokuSolver(SudokuLayout layout, ForkJoinPool pool, int parallelLevels, SolveListener listener,
+                         List<Technique> stages, WorkerSolvers workerSolvers) {
+        this.layout = layout;
+        this.pool = pool;
+        this.parallelLevels = parallelLevels;
+        this.workerSolvers = workerSolvers != null || pool == null ? workerSolvers
+                : new WorkerSolvers(pool, parallelLevels);
+        this.listener = listener;
+        state = new SudokuState(layout);
+        groupMetaValues = new int[layout.size];
+        inverseMetaValues = new int[layout.size];
+        frameFields = new int[layout.fieldCount];
+        frameCandidates = new int[layout.fieldCount];
+        frameMarks = new int[layout.fieldCount];
+        stageTechniques = stages;
+        this.stages = new PropagationStage[stages.size()];
+        for (int i = 0; i < this.stages.length; i++)
+            this.stages[i] = PropagationStage.of(stages.get(i), layout);
+    }
 
-        int steps = 0;
-        int[][] lastMetaValues = TableUtil.copyTable(metaValueTable);
-        int[][] lastSolution = TableUtil.copyTable(solutionTable);
-        while (true) {
-            solutionStep();
-            steps++;
-            if (TableUtil.tablesAreEqual(lastMetaValues, metaValueTable)
-                    && TableUtil.tablesAreEqual(lastSolution, solutionTable))
-                break;
-            lastMetaValues = TableUtil.copyTable(metaValueTable);
-            lastSolution = TableUtil.copyTable(solutionTable);
-        }
-        System.out.println("Took " + steps + " step(s) with logic on level " + this.level);
-
-        if (!sudokuChecker.isSolved(solutionTable))
-            bifurcate();
-
-        if (sudokuChecker.isSolved(solutionTable)
-                && sudokuChecker.isValid(solutionTable)
-                && sudokuChecker.matchesWithInitialTable(initialTable, solutionTable))
-            return solutionTable;
-        else
-            return null;
-    }
-
-    private void bifurcate() {
-        int[][] foundSolution = new int[9][9];
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                if (solutionTable[row][col] != 0) continue;
-                for (int number = 0; number < 9; number++) {
-                    if (BitUtil.valueHasBitSet(metaValueTable[row][col], number)) {
-                        int[][] attemptTable = TableUtil.copyTable(solutionTable);
-                        attemptTable[row][col] = number + 1;
-
-                        SudokuSolver solver = new SudokuSolver();
-                        attemptTable = solver.solve(attemptTable, this.level + 1);
-
-                        if (attemptTable != null) {
-                            System.out.println("Found working solution by bifurcation on level " + this.level);
-                            System.out.println("Attempted for " + row + " / " + col + " with number " + (number + 1));
-                            solutionTable = attemptTable;
-                            foundSolution = TableUtil.copyTable(solutionTable);
-                        }
-                    }
-                }
-            }
+    /**
+     * Creates a solver to run attempts forked by the parent, see {@link WorkerSolvers}.
+     */
+    private SudokuSolver(SudokuSolver parent) {
+        this(parent.layout, parent.pool, parent.parallelLevels, parent.listener, parent.stageTechniques,
+                parent.workerSolvers);
+    }
+
+    @Override
+    public int getSize() {
+        return layout.size;
+    }
+
+    @Override
+    public int[][] solve(int[][] sudoku) {
+        long start = System.nanoTime();
+        metaValueManipulator.initializeMetaValuesWithTable(sudoku, state);
+
+        boolean solved = scheduleInitializedState()
+                && searchInitializedState()
+                && sudokuChecker.matchesWithInitialTable(sudoku, state);
+        listener.solveFinished(solved, System.nanoTime() - start);
+        return solved ? state.toSolutionTable() : null;
+    }
+
+    /**
+     * Same as {@link #solve(int[][])}, but for a Sudoku given as its fields row by row, 81 for a 9 x 9 Sudoku.
+     * No tables are allocated, which makes this the variant to use when solving many Sudokus in a row.
+     *
+     * @param sudoku   the fields of the Sudoku, 0 for empty ones
+     * @param solution receives the fields of the solution, if there is one
+     * @return whether a solution was found
+     */
+    @Override
+    public boolean solve(int[] sudoku, int[] solution) {
+        long start = System.nanoTime();
+        boolean solved = initialize(sudoku)
+                && searchInitializedState()
+                && sudokuChecker.matchesWithInitialFields(sudoku, state);
+        if (solved)
+            System.arraycopy(state.solution, 0, solution, 0, layout.fieldCount);
+        listener.solveFinished(solved, System.nanoTime() - start);
+        return solved;
+    }
+
+    /**
+     * The budget is checked before every attempt of a bifurcation, so a solve stops within one logic pass
+     * of exceeding it. A solve with a budget runs on the calling thread only, even if the solver has a pool.
+     */
+    @Override
+    public SolveResult solve(int[] sudoku, int[] solution, Duration timeout, long maxNodes) {
+        budget.start(timeout, maxNodes);
+        boolean solved;
+        try {
+            solved = initialize(sudoku) && solveAfterLogic(sudoku, solution);
+        } finally {
+            budget.stop();
         }
-        if (!TableUtil.tablesAreEqual(foundSolution, solutionTable))
-            solutionTable = new int[9][9];
+        SolveResult result = budget.result(solved);
+        listener.solveFinished(solved, result.getElapsedNanos());
+        return result;
+    }
+
+    /**
+     * Counts the solutions of a Sudoku, but stops counting once the limit is reached.
+     * Every solution is counted exactly once, since the attempts of a bifurcation differ in the number set.
+     *
+     * @param limit the count at which to stop, 2 is enough to tell whether a Sudoku has a unique solution
+     * @return the number of solutions, but at most limit
+     */
+    @Override
+    public int countSolutions(int[][] sudoku, int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("Limit must be at least 1, was " + limit);
+        long start = System.nanoTime();
+        cancellation = null;
+        metaValueManipulator.initializeMetaValuesWithTable(sudoku, state);
+
+        int found = 0;
+        if (scheduleInitializedState() && sudokuChecker.matchesWithInitialTable(sudoku, state))
+            found = countSolutions(0, limit);
+        listener.solveFinished(found > 0, System.nanoTime() - start);
+        return found;
+    }
+
+    /**
+     * Same as {@link #countSolutions(int[][], int)}, but for a Sudoku given as its fields row by row.
+     */
+    @Override
+    public int countSolutions(int[] sudoku, int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("Limit must be at least 1, was " + limit);
+        long start = System.nanoTime();
+        cancellation = null;
+
+        int found = 0;
+        if (initialize(sudoku) && sudokuChecker.matchesWithInitialFields(sudoku, state))
+            found = countSolutions(0, limit);
+        listener.solveFinished(found > 0, System.nanoTime() - start);
+        return found;
+    }
+
+    /**
+     * Loads the Sudoku into the state and schedules all work for the logic, without applying any of it.
+     *
+     * @return false if the given numbers already contradict each other
+     */
+    boolean initialize(int[] sudoku) {
+        metaValueManipulator.initializeMetaValues(sudoku, state);
+        return scheduleInitializedState();
     }
 
-    private void solutionStep() {
-        checkForSingles();
-        for (int row = 0; row < 9; row++) {
-            checkRows(row);
-            checkRowsInverse(row);
+    /**
+     * Loads the Sudoku and applies the logic, but does not bifurcate yet.
+     * Continue with {@link #solveAfterLogic(int[], int[])} to get the solution.
+     *
+     * @return the number of fields the logic left open, or -1 if the Sudoku has no solution
+     */
+    int applyLogic(int[] sudoku) {
+        if (!initialize(sudoku) || !propagate(0))
+            return -1;
+        return countOpenFields();
+    }
+
+    /**
+     * Finishes solving the Sudoku that was last given to {@link #applyLogic(int[])}.
+     * Unlike {@link #solve(int[], int[])}, this does not tell the listener that the solve finished.
+     */
+    boolean solveAfterLogic(int[] sudoku, int[] solution) {
+        boolean solved = searchInitializedState()
+                && sudokuChecker.matchesWithInitialFields(sudoku, state);
+        if (solved)
+            System.arraycopy(state.solution, 0, solution, 0, layout.fieldCount);
+        return solved;
+    }
+
+    /**
+     * Same as {@link #solveAfterLogic(int[], int[])}, with a budget for the search.
+     */
+    SolveResult solveAfterLogic(int[] sudoku, int[] solution, Duration timeout, long maxNodes) {
+        budget.start(timeout, maxNodes);
+        boolean solved;
+        try {
+            solved = solveAfterLogic(sudoku, solution);
+        } finally {
+            budget.stop();
         }
-        for (int column = 0; column < 9; column++) {
-            checkColumns(column);
-            checkColumnsInverse(column);
+        return budget.result(solved);
+    }
+
+    private boolean scheduleInitializedState() {
+        if (!sudokuChecker.hasNoDeadEnds(state) || !sudokuChecker.isValid(state))
+            return false;
+        state.scheduleAll();
+        return true;
+    }
+
+    private boolean searchInitializedState() {
+        boolean solved;
+        if (pool == null || budget.isLimited()) {
+            // A parallel solve before leaves its flag set once it found a solution
+            cancellation = null;
+            solved = search(0);
+        } else {
+            cancellation = new AtomicBoolean();
+            solved = pool.invoke(ForkJoinTask.adapt(() -> search(0)));
         }
-        for (int cornerRow = 0; cornerRow < 9; cornerRow += 3)
-            for (int cornerColumn = 0; cornerColumn < 9; cornerColumn += 3) {
-                checkBoxes(cornerRow, cornerColumn);
-                checkBoxesInverse(cornerRow, cornerColumn);
-            }
+        return solved
+                && sudokuChecker.isSolved(state)
+                && sudokuChecker.isValid(state);
     }
 
-    private void checkForSingles() {
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                if (BitUtil.isPowerOfTwo(metaValueTable[row][col])) {
+    private boolean search(int level) {
+        if (cancellation != null && cancellation.get())
+            return false;
+        if (!propagate(level))
+            return false;
 
-                    int bits = metaValueTable[row][col];
-                    metaValueManipulator.removeBitsFromRow(metaValueTable, row, bits, false);
-                    metaValueManipulator.removeBitsFromColumn(metaValueTable, col, bits, false);
-                    metaValueManipulator.removeBitsFromBox(metaValueTable, row, col, bits, false);
+        return sudokuChecker.isSolved(state) || bifurcate(level);
+    }
 
-                    metaValueTable[row][col] = 0;
+    private int countSolutions(int level, int limit) {
+        if (!propagate(level))
+            return 0;
+        if (sudokuChecker.isSolved(state))
+            return sudokuChecker.isValid(state) ? 1 : 0;
+
+        int field = findMostConstrainedField();
+        int metaValue = state.metaValues[field];
+        int mark = state.mark();
+        int found = 0;
+        for (int bits = metaValue; bits != 0 && found < limit; bits &= bits - 1) {
+            listener.branched(level + 1);
+            state.setMetaValue(field, bits & -bits);
+            int foundInAttempt = countSolutions(level + 1, limit - found);
+            if (foundInAttempt == 0)
+                listener.backtracked(level + 1);
+            found += foundInAttempt;
+            state.undo(mark);
+        }
+        return found;
+    }
+
+    /**
+     * Applies the logic until nothing is left to do. Only the groups whose fields changed since
+     * they were last checked are looked at again, and fields that are down to a single candidate
+     * are solved first, since that is the cheapest step and changes the most. The stages only run
+     * when neither is left.
+     *
+     * @return false if the Sudoku ran into a dead end
+     */
+    boolean propagate(int level) {
+        return propagate(level, false);
+    }
 
-                    int value = 0;
-                    while (bits != 0) {
-                        value++;
-                        bits >>= 1;
-                    }
-                    solutionTable[row][col] = value;
+    /**
+     * Same as {@link #propagate(int)}, but stops as soon as a field is left with a single candidate,
+     * before solving it. The listener is only told about what the logic needed up to then.
+     */
+    boolean propagateToFirstSingle(int level) {
+        return propagate(level, true);
+    }
+
+    private boolean propagate(int level, boolean toFirstSingle) {
+        int steps = 0;
+        Arrays.fill(eliminations, 0);
+        Arrays.fill(hits, 0);
+        while (!state.hasDeadEnd()) {
+            long eliminated = state.getEliminatedCandidates();
+            if (toFirstSingle && state.hasPendingSingles())
+                break;
+            if (state.hasPendingSingles()) {
+                solveSingle(state.nextPendingSingle());
+                count(Technique.NAKED_SINGLE, eliminated, 1);
+            } else {
+                int group = state.nextDirtyGroup();
+                if (group >= 0) {
+                    checkNakedSubsets(layout.groups[group]);
+                    count(Technique.NAKED_SUBSET, eliminated, 1);
+                    if (toFirstSingle && state.hasPendingSingles())
+                        break;
+                    eliminated = state.getEliminatedCandidates();
+                    checkHiddenSubsets(layout.groups[group]);
+                    count(Technique.HIDDEN_SUBSET, eliminated, 1);
+                } else if (!applyStages()) {
+                    break;
                 }
             }
+            steps++;
         }
+
+        if (steps > 0)
+            listener.logicApplied(level, steps);
+        for (Technique technique : TECHNIQUES)
+            if (eliminations[technique.ordinal()] > 0) {
+                listener.candidatesEliminated(technique, (int) eliminations[technique.ordinal()]);
+                listener.techniqueHit(technique, hits[technique.ordinal()]);
+            }
+        return !state.hasDeadEnd();
     }
 
-    private void checkRows(int row) {
-        Map<Integer, Integer> frequencyMap = new HashMap<>();
-        for (int col = 0; col < 9; col++)
-            FrequencyMapUtil.addToFrequencyMap(frequencyMap, metaValueTable[row][col]);
-        for (var entry : frequencyMap.entrySet()) {
-            if (BitUtil.bitCountEquals(entry.getKey(), entry.getValue()))
-                metaValueManipulator.removeBitsFromRow(metaValueTable, row, entry.getKey(), true);
+    /**
+     * Runs the stages in order until one of them removes candidates.
+     *
+     * @return false if none of them did
+     */
+    private boolean applyStages() {
+        for (PropagationStage stage : stages) {
+            long eliminated = state.getEliminatedCandidates();
+            int stageHits = stage.apply(state);
+            if (stageHits > 0) {
+                count(stage.getTechnique(), eliminated, stageHits);
+                return true;
+            }
         }
+        return false;
     }
 
-    private void checkRowsInverse(int row) {
-        int[] inverseMetaValues = new int[9];
-        Arrays.fill(inverseMetaValues, 0);
-        for (int col = 0; col < 9; col++) {
-            int value = metaValueTable[row][col];
-            for (int number = 0; number < 9; number++)
-                if (BitUtil.valueHasBitSet(value, number))
-                    inverseMetaValues[number] = BitUtil.setBitOfValue(inverseMetaValues[number], col);
+    private void count(Technique technique, long eliminatedBefore, int stepHits) {
+        long eliminated = state.getEliminatedCandidates() - eliminatedBefore;
+        if (eliminated == 0)
+            return;
+        eliminations[technique.ordinal()] += eliminated;
+        hits[technique.ordinal()] += stepHits;
+    }
+
+    /**
+     * Picks the open field with the fewest remaining candidates and tries each of them in turn.
+     * The search stops at the first attempt that leads to a solution.
+     */
+    boolean bifurcate(int level) {
+        int bestField = findMostConstrainedField();
+        if (bestField < 0)
+            return false;
+
+        if (pool != null && !budget.isLimited() && level < parallelLevels && countOpenFields() >= MIN_OPEN_FIELDS_TO_FORK)
+            return bifurcateInParallel(level, bestField);
+        return searchOnStack(level, bestField);
+    }
+
+    /**
+     * Searches depth first from a bifurcation on the field at the given level, trying the candidates of each
+     * field from the smallest number on. Frames are only pushed for attempts whose logic pass left the Sudoku
+     * open, and popped once all their candidates failed.
+     *
+     * @return true if a solution was found, which the state then holds; otherwise the state is taken back
+     * to how it was before
+     */
+    private boolean searchOnStack(int level, int field) {
+        int top = 0;
+        frameFields[0] = field;
+        frameCandidates[0] = state.metaValues[field];
+        frameMarks[0] = state.mark();
+        while (top >= 0) {
+            int candidates = frameCandidates[top];
+            if (candidates == 0) {
+                top--;
+                if (top >= 0)
+                    listener.backtracked(level + top + 1);
+                continue;
+            }
+            int bit = candidates & -candidates;
+            frameCandidates[top] = candidates & ~bit;
+            state.undo(frameMarks[top]);
+            int attemptLevel = level + top + 1;
+            if (cancellation != null && cancellation.get() || !budget.tryNode(attemptLevel))
+                break;
+
+            listener.branched(attemptLevel);
+            state.setMetaValue(frameFields[top], bit);
+            if (!propagate(attemptLevel)) {
+                listener.backtracked(attemptLevel);
+                continue;
+            }
+            if (sudokuChecker.isSolved(state))
+                return true;
+
+            int next = findMostConstrainedField();
+            top++;
+            frameFields[top] = next;
+            frameCandidates[top] = state.metaValues[next];
+            frameMarks[top] = state.mark();
         }
+        state.undo(frameMarks[0]);
+        return false;
+    }
 
-        Map<Integer, Integer> frequencyMap = FrequencyMapUtil.createFrequencyMapOfInverseMetaValues(inverseMetaValues);
-
-        for (var entry : frequencyMap.entrySet()) {
-            if (BitUtil.bitCountEquals(entry.getKey(), entry.getValue())) {
-                List<Integer> fields = InverseMetaValueUtil.getAffectedFields(entry.getKey());
-                List<Integer> numbers = InverseMetaValueUtil.getAffectedNumbers(inverseMetaValues, entry.getKey());
-                int numbersValue = InverseMetaValueUtil.getNumbersValue(numbers);
-                for (int number : numbers) {
-                    for (int col = 0; col < 9; col++) {
-                        if (fields.contains(col))
-                            metaValueTable[row][col] = metaValueManipulator.removeBitsFromMetaValue(metaValueTable[row][col], BitUtil.singleBit(number));
-                        else
-                            metaValueTable[row][col] = numbersValue;
-                    }
-                }
+    /**
+     * @return the open field with the fewest remaining candidates, or -1 if there is no open field
+     */
+    private int findMostConstrainedField() {
+        int bestField = -1;
+        int bestCount = layout.size + 1;
+        for (int field = 0; field < layout.fieldCount && bestCount > 2; field++) {
+            if (state.solution[field] != 0) continue;
+            int count = Integer.bitCount(state.metaValues[field]);
+            if (count < bestCount) {
+                bestCount = count;
+                bestField = field;
             }
         }
+        return bestField;
     }
 
-    private void checkColumns(int col) {
-        Map<Integer, Integer> frequencyMap = new HashMap<>();
-        for (int row = 0; row < 9; row++)
-            FrequencyMapUtil.addToFrequencyMap(frequencyMap, metaValueTable[row][col]);
-        for (var entry : frequencyMap.entrySet()) {
-            if (BitUtil.bitCountEquals(entry.getKey(), entry.getValue()))
-                metaValueManipulator.removeBitsFromColumn(metaValueTable, col, entry.getKey(), true);
+    private boolean bifurcateInParallel(int level, int field) {
+        List<Attempt> attempts = new ArrayList<>();
+        for (int metaValue = state.metaValues[field]; metaValue != 0; metaValue &= metaValue - 1)
+            attempts.add(new Attempt(this, field, metaValue & -metaValue, level + 1));
+        ForkJoinTask.invokeAll(attempts);
+
+        for (Attempt attempt : attempts) {
+            SudokuSolver solver = attempt.join();
+            if (solver != null) {
+                state.copyFrom(solver.state);
+                return true;
+            }
         }
+        return false;
     }
 
-    private void checkColumnsInverse(int col) {
-        int[] inverseMetaValues = new int[9];
-        Arrays.fill(inverseMetaValues, 0);
-        for (int row = 0; row < 9; row++) {
-            int value = metaValueTable[row][col];
-            for (int number = 0; number < 9; number++)
-                if (BitUtil.valueHasBitSet(value, number))
-                    inverseMetaValues[number] = BitUtil.setBitOfValue(inverseMetaValues[number], row);
+    private int countOpenFields() {
+        int openFields = 0;
+        for (int field = 0; field < layout.fieldCount; field++)
+            if (state.solution[field] == 0)
+                openFields++;
+        return openFields;
+    }
+
+    void solveSingle(int field) {
+        int bits = state.metaValues[field];
+        if (state.solution[field] != 0 || !BitUtil.isPowerOfTwo(bits))
+            return;
+
+        state.solveField(field, Integer.numberOfTrailingZeros(bits) + 1);
+        metaValueManipulator.removeBitsFromPeers(state, field, bits);
+    }
+
+    /**
+     * Finds meta values that occur in exactly as many fields of a group as they have bits set.
+     * Those numbers are bound to these fields and can be removed from all other fields of the group.
+     */
+    void checkNakedSubsets(int[] group) {
+        int size = group.length;
+        for (int i = 0; i < size; i++)
+            groupMetaValues[i] = state.metaValues[group[i]];
+
+        for (int i = 0; i < size; i++) {
+            int metaValue = groupMetaValues[i];
+            if (metaValue == 0 || occursBefore(groupMetaValues, i)) continue;
+            int frequency = 1;
+            for (int j = i + 1; j < size; j++)
+                if (groupMetaValues[j] == metaValue)
+                    frequency++;
+            if (BitUtil.bitCountEquals(metaValue, frequency))
+                metaValueManipulator.removeBitsFromGroup(state, group, metaValue, true);
         }
+    }
 
-        Map<Integer, Integer> frequencyMap = FrequencyMapUtil.createFrequencyMapOfInverseMetaValues(inverseMetaValues);
-
-        for (var entry : frequencyMap.entrySet()) {
-            if (BitUtil.bitCountEquals(entry.getKey(), entry.getValue())) {
-                List<Integer> fields = InverseMetaValueUtil.getAffectedFields(entry.getKey());
-                List<Integer> numbers = InverseMetaValueUtil.getAffectedNumbers(inverseMetaValues, entry.getKey());
-                int numbersValue = InverseMetaValueUtil.getNumbersValue(numbers);
-                for (int number : numbers)
-                    for (int i = 0; i < 9; i++) {
-                        if (fields.contains(i))
-                            metaValueTable[i][col] = metaValueManipulator.removeBitsFromMetaValue(metaValueTable[i][col], BitUtil.singleBit(number));
-                        else
-                            metaValueTable[i][col] = numbersValue;
-                }
+    /**
+     * Finds inverse meta values that are shared by exactly as many numbers as they have bits set.
+     * Those fields can only hold these numbers, so all other bits are removed from them.
+     */
+    void checkHiddenSubsets(int[] group) {
+        int size = group.length;
+        Arrays.fill(inverseMetaValues, 0);
+        for (int i = 0; i < size; i++) {
+            int metaValue = state.metaValues[group[i]];
+            while (metaValue != 0) {
+                int number = Integer.numberOfTrailingZeros(metaValue);
+                inverseMetaValues[number] = BitUtil.setBitOfValue(inverseMetaValues[number], i);
+                metaValue &= metaValue - 1;
             }
         }
+
+        for (int number = 0; number < size; number++) {
+            int inverseMetaValue = inverseMetaValues[number];
+            if (inverseMetaValue == 0 || occursBefore(inverseMetaValues, number)) continue;
+            int numbersValue = BitUtil.singleBit(number + 1);
+            for (int other = number + 1; other < size; other++)
+                if (inverseMetaValues[other] == inverseMetaValue)
+                    numbersValue |= BitUtil.singleBit(other + 1);
+            if (BitUtil.bitCountEquals(inverseMetaValue, Integer.bitCount(numbersValue)))
+                for (int fields = inverseMetaValue; fields != 0; fields &= fields - 1)
+                    state.setMetaValue(group[Integer.numberOfTrailingZeros(fields)], numbersValue);
+        }
     }
 
-    private void checkBoxes(int cornerRow, int cornerColumn) {
-        Map<Integer, Integer> frequencyMap = new HashMap<>();
-        for (int colIncrement = 0; colIncrement < 3; colIncrement++)
-            for (int rowIncrement = 0; rowIncrement < 3; rowIncrement++)
-                FrequencyMapUtil.addToFrequencyMap(frequencyMap, metaValueTable[cornerRow + rowIncrement][cornerColumn + colIncrement]);
-        for (var entry : frequencyMap.entrySet())
-            if (BitUtil.bitCountEquals(entry.getKey(), entry.getValue()))
-                metaValueManipulator.removeBitsFromBox(metaValueTable, cornerRow, cornerColumn, entry.getKey(), true);
+    private static boolean occursBefore(int[] values, int index) {
+        for (int i = 0; i < index; i++)
+            if (values[i] == values[index])
+                return true;
+        return false;
     }
 
-    private void checkBoxesInverse(int cornerRow, int cornerColumn) {
-        int[] inverseMetaValues = new int[9];
-        Arrays.fill(inverseMetaValues, 0);
-        for (int colIncrement = 0; colIncrement < 3; colIncrement++)
-            for (int rowIncrement = 0; rowIncrement < 3; rowIncrement++) {
-                int metaValue = metaValueTable[cornerRow + rowIncrement][cornerColumn + colIncrement];
-                for (int number = 0; number < 9; number++)
-                    if (BitUtil.valueHasBitSet(metaValue, number))
-                        inverseMetaValues[number] = BitUtil.setBitOfValue(inverseMetaValues[number], colIncrement + 3 * rowIncrement);
-            }
+    /**
+     * Searches for a solution with one number set into a field, on a copy of the state of the solver it was created by.
+     * Results in the solver holding the solution, or null if this attempt did not lead to one.
+     */
+    private static class Attempt extends RecursiveTask<SudokuSolver> {
+
+        // Serializable through ForkJoinTask only, attempts are never serialized
+        private static final long serialVersionUID = 1L;
+
+        private final SudokuSolver parent;
+        private final int field;
+        private final int bit;
+        private final int level;
+
+        Attempt(SudokuSolver parent, int field, int bit, int level) {
+            this.parent = parent;
+            this.field = field;
+            this.bit = bit;
+            this.level = level;
+        }
 
-        Map<Integer, Integer> frequencyMap = FrequencyMapUtil.createFrequencyMapOfInverseMetaValues(inverseMetaValues);
-
-        for (var entry : frequencyMap.entrySet()) {
-            if (BitUtil.bitCountEquals(entry.getKey(), entry.getValue())) {
-                List<Integer> fields = InverseMetaValueUtil.getAffectedFields(entry.getKey());
-                List<Integer> numbers = InverseMetaValueUtil.getAffectedNumbers(inverseMetaValues, entry.getKey());
-                int numbersValue = InverseMetaValueUtil.getNumbersValue(numbers);
-                for (int number : numbers) {
-                    for (int i = 0; i < 9; i++) {
-                        int row = cornerRow + (i / 3);
-                        int col = cornerColumn + (i % 3);
-                        if (fields.contains(i))
-                            metaValueTable[row][col] = metaValueManipulator.removeBitsFromMetaValue(metaValueTable[row][col], BitUtil.singleBit(number));
-                        else
-                            metaValueTable[row][col] = numbersValue;
-                    }
+        @Override
+        protected SudokuSolver compute() {
+            if (parent.cancellation.get())
+                return null;
+            parent.listener.branched(level);
+            SudokuSolver solver = parent.workerSolvers.take(parent, level);
+            try {
+                solver.state.setMetaValue(field, bit);
+                if (!solver.search(level)) {
+                    parent.listener.backtracked(level);
+                    return null;
                 }
+                parent.cancellation.set(true);
+                return solver;
+            } finally {
+                solver.inAttempt = false;
             }
         }
     }
+
+    /**
+     * The solvers attempts run on, created on first use and shared by a solver with all solvers it forks to.
+     * There is one per worker thread of the pool and level of attempts, since a worker that waits for the attempts
+     * it forked runs deeper attempts in the meantime. An attempt returns its solver while the parent still has
+     * to copy the solution out of it; that is safe, as the first solution cancels every attempt not yet started.
+     * A thread without a slot, or one whose slot is in use, gets a new solver.
+     */
+    private static class WorkerSolvers {
+
+        private final ForkJoinPool pool;
+        private final int levels;
+        private final AtomicReferenceArray<SudokuSolver> solvers;
+
+        WorkerSolvers(ForkJoinPool pool, int levels) {
+            this.pool = pool;
+            this.levels = levels;
+            // Pool indexes of workers stay below twice the parallelism unless the pool compensates for blocked ones
+            solvers = new AtomicReferenceArray<>(2 * pool.getParallelism() * levels);
+        }
+
+        /**
+         * @return a solver like the parent, holding a copy of its state, for an attempt at the given level
+         */
+        SudokuSolver take(SudokuSolver parent, int level) {
+            int slot = slotOfCurrentThread(level);
+            SudokuSolver solver = slot < 0 ? null : solvers.get(slot);
+            if (solver == null || solver.inAttempt) {
+                solver = new SudokuSolver(parent);
+                if (slot >= 0 && solvers.get(slot) == null)
+                    solvers.set(slot, solver);
+            }
+            solver.cancellation = parent.cancellation;
+            solver.state.copyFrom(parent.state);
+            solver.inAttempt = true;
+            return solver;
+        }
+
+        private int slotOfCurrentThread(int level) {
+            Thread thread = Thread.currentThread();
+            if (!(thread instanceof ForkJoinWorkerThread) || ((ForkJoinWorkerThread) thread).getPool() != pool)
+                return -1;
+            int slot = ((ForkJoinWorkerThread) thread).getPoolIndex() * levels + level - 1;
+            return slot < solvers.length() ? slot : -1;
+        }
+    }
 }
@@ -0,0 +1,185 @@
+package de.nav.sudoku.solving;
+
+import de.nav.sudoku.solving.util.BitUtil;
+import de.nav.sudoku.solving.util.TableUtil;
+
+import java.util.Arrays;
+
+/**
+ * Flat representation of a Sudoku during solving: one meta value and one solution number per field.
+ *
+ * Every change made through {@link #setMetaValue(int, int)} or {@link #solveField(int, int)} is recorded
+ * on a trail, so a branch of the search can be taken back with {@link #undo(int)} instead of copying
+ * the whole state beforehand. Along one path of the search a meta value only ever loses bits, and a field
+ * is solved at most once, so the path records at most {@code size} changes per field. The trail is sized
+ * for that up front and never grows during a search; only a {@link Board}, whose moves give candidates
+ * back, can outgrow it.
+ *
+ * Changes also feed the work of the logic: the groups of a changed field are marked in a bit mask
+ * of dirty groups (in the order of {@link SudokuLayout#groups}, the groups past 64 in a second mask),
+ * fields that are down to a single candidate are queued to be solved, and a field losing its last
+ * candidate marks a dead end.
+ *
+ * 9x9 runs through the same layout tables as every other size rather than a path of its own. Its 27 groups
+ * all fit the first mask, so the high mask stays 0 and costs one OR per change and one test once the work
+ * has run out; solving the corpora through the tables was no slower than the hardcoded 9x9 code it replaced.
+ */
+class SudokuState {
+
+    private static final int TRAIL_ENTRY_SIZE = 3;
+
+    final SudokuLayout layout;
+    final int[] metaValues;
+    final int[] solution;
+
+    private int[] trail;
+    private int trailSize;
+
+    private final long[] groupMasks;
+    private final long[] highGroupMasks;
+    private long dirtyGroups;
+    private long highDirtyGroups;
+    private final int[] pendingSingles;
+    private int pendingSinglesCount;
+    private boolean deadEnd;
+    private long eliminatedCandidates;
+
+    SudokuState(SudokuLayout layout) {
+        this.layout = layout;
+        metaValues = new int[layout.fieldCount];
+        solution = new int[layout.fieldCount];
+        trail = new int[TRAIL_ENTRY_SIZE * layout.fieldCount * layout.size];
+        groupMasks = layout.groupMasks;
+        highGroupMasks = layout.highGroupMasks;
+        pendingSingles = new int[layout.fieldCount];
+    }
+
+    void clear() {
+        Arrays.fill(metaValues, 0);
+        Arrays.fill(solution, 0);
+        trailSize = 0;
+        resetWork();
+    }
+
+    /**
+     * Takes over the meta values and solution of the other state, which must not have any work left.
+     * The trail starts empty.
+     */
+    void copyFrom(SudokuState other) {
+        System.arraycopy(other.metaValues, 0, metaValues, 0, metaValues.length);
+        System.arraycopy(other.solution, 0, solution, 0, solution.length);
+        trailSize = 0;
+        resetWork();
+    }
+
+    /**
+     * Marks all groups as dirty and queues all single candidates, for values that were written
+     * directly into the arrays instead of going through this class.
+     */
+    void scheduleAll() {
+        resetWork();
+        for (int field = 0; field < metaValues.length; field++) {
+            dirtyGroups |= groupMasks[field];
+            highDirtyGroups |= highGroupMasks[field];
+        }
+        pendingSinglesCount = GridKernel.INSTANCE.collectSingles(solution, metaValues, pendingSingles);
+    }
+
+    void setMetaValue(int field, int metaValue) {
+        if (metaValues[field] == metaValue)
+            return;
+        record(field);
+        eliminatedCandidates += Integer.bitCount(metaValues[field] & ~metaValue);
+        metaValues[field] = metaValue;
+        dirtyGroups |= groupMasks[field];
+        highDirtyGroups |= highGroupMasks[field];
+        if (solution[field] != 0)
+            return;
+        if (metaValue == 0)
+            deadEnd = true;
+        else if (BitUtil.isPowerOfTwo(metaValue))
+            pendingSingles[pendingSinglesCount++] = field;
+    }
+
+    void solveField(int field, int number) {
+        record(field);
+        metaValues[field] = 0;
+        solution[field] = number;
+        dirtyGroups |= groupMasks[field];
+        highDirtyGroups |= highGroupMasks[field];
+    }
+
+    /**
+     * @return the number of candidates removed through {@link #setMetaValue(int, int)} so far,
+     * which keeps counting across {@link #undo(int)}
+     */
+    long getEliminatedCandidates() {
+        return eliminatedCandidates;
+    }
+
+    boolean hasDeadEnd() {
+        return deadEnd;
+    }
+
+    boolean hasPendingSingles() {
+        return pendingSinglesCount > 0;
+    }
+
+    int nextPendingSingle() {
+        return pendingSingles[--pendingSinglesCount];
+    }
+
+    /**
+     * @return the index of a dirty group, which is no longer dirty afterwards, or -1 if there is none
+     */
+    int nextDirtyGroup() {
+        if (dirtyGroups != 0) {
+            int group = Long.numberOfTrailingZeros(dirtyGroups);
+            dirtyGroups &= dirtyGroups - 1;
+            return group;
+        }
+        if (highDirtyGroups != 0) {
+            int group = 64 + Long.numberOfTrailingZeros(highDirtyGroups);
+            highDirtyGroups &= highDirtyGroups - 1;
+            return group;
+        }
+        return -1;
+    }
+
+    int mark() {
+        return trailSize;
+    }
+
+    void undo(int mark) {
+        while (trailSize > mark) {
+            trailSize -= TRAIL_ENTRY_SIZE;
+            int field = trail[trailSize];
+            metaValues[field] = trail[trailSize + 1];
+            solution[field] = trail[trailSize + 2];
+        }
+        resetWork();
+    }
+
+    int[][] toSolutionTable() {
+        return TableUtil.toTable(solution, layout.size);
+    }
+
+    /**
+     * Drops the dirty groups, pending singles and dead end without doing anything about them.
+     */
+    void resetWork() {
+        dirtyGroups = 0;
+        highDirtyGroups = 0;
+        pendingSinglesCount = 0;
+        deadEnd = false;
+    }
+
+    private void record(int field) {
+        if (trailSize + TRAIL_ENTRY_SIZE > trail.length)
+            trail = Arrays.copyOf(trail, trail.length * 2);
+        trail[trailSize] = field;
+        trail[trailSize + 1] = metaValues[field];
+        trail[trailSize + 2] = solution[field];
+        trailSize += TRAIL_ENTRY_SIZE;
+    }
+}
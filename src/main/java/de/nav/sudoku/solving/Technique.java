@@ -0,0 +1,49 @@
+package de.nav.sudoku.solving;
+
+/**
+ * The logic techniques the solver applies before it resorts to bifurcation.
+ * Singles and subsets are always applied, the techniques from {@link #POINTING} on are optional stages
+ * that look at more than one group at a time, see {@link SudokuSolver#DEFAULT_STAGES}.
+ */
+public enum Technique {
+
+    /**
+     * A field with a single candidate is solved, and its number is removed from the rest of its groups.
+     */
+    NAKED_SINGLE,
+
+    /**
+     * As many fields of a group as there are numbers share the same candidates,
+     * so these numbers are removed from the other fields of the group.
+     */
+    NAKED_SUBSET,
+
+    /**
+     * As many numbers as there are fields can only go into the same fields of a group,
+     * so all other candidates are removed from these fields.
+     */
+    HIDDEN_SUBSET,
+
+    /**
+     * The candidates for a number within a box all lie in one row or column,
+     * so the number is removed from the rest of that row or column.
+     */
+    POINTING,
+
+    /**
+     * The candidates for a number within a row or column all lie in one box,
+     * so the number is removed from the rest of that box.
+     */
+    BOX_LINE_REDUCTION,
+
+    /**
+     * The candidates for a number in two rows all lie in the same two columns, or the other way round,
+     * so the number is removed from these columns in all other rows.
+     */
+    X_WING,
+
+    /**
+     * Like {@link #X_WING}, but for three rows and three columns.
+     */
+    SWORDFISH
+}
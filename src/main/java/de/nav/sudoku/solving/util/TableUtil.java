@@ -8,27 +8,54 @@ public class TableUtil {
         return Arrays.stream(table).map(int[]::clone).toArray(int[][]::new);
     }
 
+    /**
+     * @return the fields of the table row by row
+     * @throws IllegalArgumentException if the table does not have size rows and columns
+     */
+    static public int[] toFields(int[][] table, int size) {
+        if (table.length != size)
+            throw new IllegalArgumentException("Expected " + size + " rows, got " + table.length);
+        int[] fields = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            if (table[row].length != size)
+                throw new IllegalArgumentException("Expected " + size + " columns, got " + table[row].length);
+            System.arraycopy(table[row], 0, fields, row * size, size);
+        }
+        return fields;
+    }
+
+    static public int[][] toTable(int[] fields, int size) {
+        int[][] table = new int[size][size];
+        for (int row = 0; row < size; row++)
+            System.arraycopy(fields, row * size, table[row], 0, size);
+        return table;
+    }
+
     static public boolean tablesAreEqual(int[][] table1, int[][] table2) {
-        for (int row = 0; row < 9; row++)
-            for (int col = 0; col < 9; col++)
+        if (table1.length != table2.length)
+            return false;
+        for (int row = 0; row < table1.length; row++)
+            for (int col = 0; col < table1.length; col++)
                 if (table1[row][col] != table2[row][col])
                     return false;
         return true;
     }
 
     static public void printTable(int[][] table) {
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
+        int size = table.length;
+        int boxSize = (int) Math.sqrt(size);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
                 int val = table[row][col];
                 if (val < 10) System.out.print("  ");
                 else if (val < 100) System.out.print(" ");
                 System.out.print(val + " ");
-                if (col == 2 || col == 5)
+                if (col % boxSize == boxSize - 1 && col < size - 1)
                     System.out.print("|");
             }
             System.out.println();
-            if (row == 2 || row == 5)
-                System.out.println("––––––––––––––––––––––––––––––––––––––");
+            if (row % boxSize == boxSize - 1 && row < size - 1)
+                System.out.println("–".repeat(4 * size + boxSize - 1));
         }
         System.out.println();
     }
@@ -0,0 +1,69 @@
+package de.nav.sudoku;
+
+import de.nav.sudoku.batch.PuzzleInput;
+import de.nav.sudoku.batch.PuzzleReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sudokus for tests, read in the one-per-line text format of {@link PuzzleReader}.
+ */
+public class TestSudokus {
+
+    private TestSudokus() {
+    }
+
+    /**
+     * @return the fields of a Sudoku given as one line
+     * @throws IllegalArgumentException if the line does not start with 81 fields
+     */
+    static public int[] fields(String line) {
+        int[] fields = new int[81];
+        try (PuzzleReader reader = reader(line)) {
+            int fieldCount = reader.next(fields);
+            if (fieldCount != 81)
+                throw new IllegalArgumentException("Expected 81 fields, got " + fieldCount + " in " + line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return fields;
+    }
+
+    static public PuzzleReader reader(String text) {
+        return reader(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    static public PuzzleReader reader(InputStream in) {
+        return new PuzzleReader(Channels.newChannel(in));
+    }
+
+    /**
+     * @return the Sudokus of a corpus from the test resources, see {@code src/jmh/resources/corpus}
+     * @throws IllegalArgumentException if the corpus does not exist or has a line that is not a Sudoku
+     */
+    static public List<int[]> corpus(String name) {
+        InputStream in = TestSudokus.class.getResourceAsStream("/corpus/" + name + ".txt");
+        if (in == null)
+            throw new IllegalArgumentException("No corpus " + name);
+        List<int[]> sudokus = new ArrayList<>();
+        try (PuzzleReader reader = reader(in)) {
+            int[] fields = new int[81];
+            int fieldCount;
+            while ((fieldCount = reader.next(fields)) != PuzzleInput.END_OF_INPUT) {
+                if (fieldCount != 81)
+                    throw new IllegalArgumentException(name + ":" + reader.getLineNumber() + " is not a Sudoku");
+                sudokus.add(fields.clone());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sudokus;
+    }
+}
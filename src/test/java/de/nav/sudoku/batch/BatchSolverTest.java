@@ -0,0 +1,33 @@
+package de.nav.sudoku.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static de.nav.sudoku.TestSudokus.reader;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchSolverTest {
+
+    private static final String SOLVABLE =
+            "010004608900000000046970000624000100700416800090250467103805000572000900400000003";
+
+    @Test
+    void skipsEmptyLines() throws IOException {
+        ByteArrayOutputStream solutions = new ByteArrayOutputStream();
+        BatchSolver.BatchReport report;
+        try (BatchSolver solver = new BatchSolver(2, 2);
+             PuzzleWriter writer = new PuzzleWriter(solutions)) {
+            report = solver.solve(reader(SOLVABLE + "\n\n" + SOLVABLE + "\n\n"), writer);
+        }
+
+        assertEquals(2L, report.getSolved());
+        assertEquals(0L, report.getMalformed());
+        String[] lines = solutions.toString(StandardCharsets.US_ASCII).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals(81, lines[0].length());
+        assertEquals(lines[0], lines[1]);
+    }
+}
@@ -0,0 +1,96 @@
+package de.nav.sudoku.batch;
+
+import de.nav.sudoku.solving.SudokuSolver;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.nav.sudoku.TestSudokus.fields;
+import static de.nav.sudoku.TestSudokus.reader;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchValidatorTest {
+
+    private static final String SOLVABLE =
+            "010004608900000000046970000624000100700416800090250467103805000572000900400000003";
+    private static final String UNSOLVABLE =
+            "110004608900000000046970000624000100700416800090250467103805000572000900400000003";
+
+    @Test
+    void validatesTheOutputOfTheBatchSolverInPlace() throws IOException {
+        String sudokus = SOLVABLE + "\n" + UNSOLVABLE + "\n" + SOLVABLE + "\n";
+        ByteArrayOutputStream solutions = new ByteArrayOutputStream();
+        try (BatchSolver solver = new BatchSolver(2, 2);
+             PuzzleWriter writer = new PuzzleWriter(solutions)) {
+            solver.solve(reader(sudokus), writer);
+        }
+
+        List<Long> rejected = new ArrayList<>();
+        List<Integer> fields = new ArrayList<>();
+        BatchValidator.ValidationReport report = BatchValidator.validate(reader(sudokus),
+                reader(solutions.toString(StandardCharsets.US_ASCII)), (index, field) -> {
+                    rejected.add(index);
+                    fields.add(field);
+                });
+
+        assertEquals(2L, report.getValid());
+        assertEquals(1L, report.getUnsolved());
+        assertEquals(0L, report.getInvalid() + report.getMalformed());
+        assertEquals(List.of(1L), rejected);
+        assertEquals(List.of(BatchValidator.UNSOLVED), fields);
+    }
+
+    @Test
+    void textGridsCutShortAreMalformed() throws IOException {
+        StringBuilder solution = new StringBuilder();
+        for (int number : solution(SOLVABLE))
+            solution.append(number);
+        String grids = "x" + solution + "\n\n" + solution + "\n";
+        List<Integer> fields = new ArrayList<>();
+        BatchValidator.ValidationReport report = BatchValidator.validate(reader(SOLVABLE + "\n" + SOLVABLE + "\n"
+                + SOLVABLE + "\n"), reader(grids), (index, field) -> fields.add(field));
+
+        assertEquals(List.of(BatchValidator.MALFORMED, BatchValidator.UNSOLVED), fields);
+        assertEquals(1L, report.getValid());
+    }
+
+    @Test
+    void packedGridsWithABadFirstFieldAreMalformed() throws IOException {
+        Path file = Files.createTempFile("grids", PackedFormat.EXTENSION);
+        try {
+            try (PackedPuzzleWriter writer = PackedPuzzleWriter.open(file)) {
+                writer.write(solution(SOLVABLE));
+                writer.writeUnsolved();
+                writer.write(solution(SOLVABLE));
+            }
+            byte[] bytes = Files.readAllBytes(file);
+            bytes[PackedFormat.HEADER_SIZE] |= (byte) 0xF0;
+            Files.write(file, bytes);
+
+            List<Integer> fields = new ArrayList<>();
+            BatchValidator.ValidationReport report;
+            try (PackedPuzzleReader grids = PackedPuzzleReader.open(file)) {
+                report = BatchValidator.validate(reader(SOLVABLE + "\n" + SOLVABLE + "\n" + SOLVABLE + "\n"), grids,
+                        (index, field) -> fields.add(field));
+            }
+
+            assertEquals(List.of(BatchValidator.MALFORMED, BatchValidator.UNSOLVED), fields);
+            assertEquals(1L, report.getValid());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static int[] solution(String sudoku) {
+        int[] solution = new int[81];
+        assertTrue(new SudokuSolver().solve(fields(sudoku), solution));
+        return solution;
+    }
+}
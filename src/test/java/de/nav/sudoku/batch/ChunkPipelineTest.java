@@ -0,0 +1,50 @@
+package de.nav.sudoku.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChunkPipelineTest {
+
+    @Test
+    void drainsInFillOrder() throws IOException {
+        for (int threads : new int[]{1, 4}) {
+            List<Long> drained = new ArrayList<>();
+            try (ChunkPipeline<long[]> pipeline = new ChunkPipeline<>(threads, 3, "test-worker")) {
+                pipeline.run(() -> new long[2], (chunk, index) -> {
+                    chunk[0] = index;
+                    return index < 100;
+                }, chunk -> {
+                    // Later chunks tend to finish first
+                    if (chunk[0] % 3 == 0)
+                        Thread.onSpinWait();
+                    chunk[1] = chunk[0] * chunk[0];
+                }, chunk -> drained.add(chunk[1]));
+            }
+            assertEquals(100, drained.size());
+            for (int i = 0; i < 100; i++)
+                assertEquals((long) i * i, (long) drained.get(i), "threads " + threads);
+        }
+    }
+
+    @Test
+    void passesOnFailuresOfProcessing() {
+        try (ChunkPipeline<int[]> pipeline = new ChunkPipeline<>(2, 2, "test-worker")) {
+            assertThrows(IllegalStateException.class, () -> {
+                try {
+                    pipeline.run(() -> new int[1], (chunk, index) -> index < 10, chunk -> {
+                        throw new IllegalStateException("Failed");
+                    }, chunk -> {
+                    });
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package de.nav.sudoku.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static de.nav.sudoku.TestSudokus.fields;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PackedPuzzleReaderTest {
+
+    private static final String SUDOKU =
+            "010004608900000000046970000624000100700416800090250467103805000572000900400000003";
+
+    @Test
+    void unsolvedRecordsAreNotMalformed() throws IOException {
+        Path file = Files.createTempFile("sudokus", PackedFormat.EXTENSION);
+        try {
+            try (PackedPuzzleWriter writer = PackedPuzzleWriter.open(file)) {
+                writer.write(fields(SUDOKU));
+                writer.writeUnsolved();
+                writer.write(fields(SUDOKU));
+            }
+            byte[] bytes = Files.readAllBytes(file);
+            bytes[PackedFormat.HEADER_SIZE + 2 * PackedFormat.RECORD_SIZE] |= (byte) 0xF0;
+            Files.write(file, bytes);
+
+            int[] fields = new int[81];
+            try (PackedPuzzleReader reader = PackedPuzzleReader.open(file)) {
+                assertEquals(81, reader.next(fields));
+                assertEquals(PuzzleInput.NO_GRID, reader.next(fields));
+                assertEquals(0, reader.next(fields));
+                assertEquals(PuzzleInput.END_OF_INPUT, reader.next(fields));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package de.nav.sudoku.benchmark;
+
+import de.nav.sudoku.solving.DancingLinksSolver;
+import de.nav.sudoku.solving.Solver;
+import de.nav.sudoku.solving.SudokuSolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static de.nav.sudoku.TestSudokus.corpus;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * The benchmarks take every Sudoku of the corpora to have exactly one solution.
+ */
+class CorpusTest {
+
+    @Test
+    void everySudokuHasAUniqueSolution() {
+        Solver[] solvers = {new SudokuSolver(), new DancingLinksSolver()};
+        for (String name : new String[]{"easy", "hard", "seventeen"}) {
+            List<int[]> sudokus = corpus(name);
+            assertFalse(sudokus.isEmpty(), name);
+            for (int i = 0; i < sudokus.size(); i++)
+                for (Solver solver : solvers)
+                    assertEquals(1, solver.countSolutions(sudokus.get(i), 2), name + ":" + (i + 1));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package de.nav.sudoku.caching;
+
+import de.nav.sudoku.solving.SudokuSolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static de.nav.sudoku.TestSudokus.corpus;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingSolverTest {
+
+    @Test
+    void equivalentSudokusAreHits() {
+        List<int[]> sudokus = corpus("hard");
+        SolutionCache cache = new SolutionCache(sudokus.size());
+        CachingSolver solver = new CachingSolver(new SudokuSolver(), cache);
+        int[] solution = new int[81];
+        for (int[] sudoku : sudokus)
+            assertTrue(solver.solve(sudoku, solution));
+
+        for (int[] sudoku : sudokus)
+            for (int[] equivalent : new int[][]{sudoku, transform(sudoku), transform(transform(sudoku))}) {
+                assertTrue(solver.solve(equivalent, solution));
+                assertSolves(equivalent, solution);
+            }
+        assertEquals(3L * sudokus.size(), cache.getHits());
+        assertEquals((long) sudokus.size(), cache.getMisses());
+    }
+
+    @Test
+    void sudokusWithHardlyAnyGivensAreSolvedWithoutTheCache() {
+        SolutionCache cache = new SolutionCache(16);
+        CachingSolver solver = new CachingSolver(new SudokuSolver(), cache);
+        int[] solution = new int[81];
+        int[] first = new int[81];
+        first[0] = 5;
+        int[] second = new int[81];
+        second[40] = 3;
+        assertTrue(solver.solve(first, solution));
+        assertSolves(first, solution);
+        // Equivalent to the first, but too symmetric for the canonical form
+        assertTrue(solver.solve(second, solution));
+        assertSolves(second, solution);
+        assertEquals(0, cache.size());
+        assertEquals(0L, cache.getHits());
+    }
+
+    /**
+     * Transposes, swaps the first two bands and the first two rows of the last band, and relabels the numbers.
+     */
+    private static int[] transform(int[] sudoku) {
+        int[] rowOrder = {3, 4, 5, 0, 1, 2, 7, 6, 8};
+        int[] transformed = new int[81];
+        for (int row = 0; row < 9; row++)
+            for (int col = 0; col < 9; col++) {
+                int number = sudoku[col * 9 + rowOrder[row]];
+                transformed[row * 9 + col] = number == 0 ? 0 : number % 9 + 1;
+            }
+        return transformed;
+    }
+
+    private static void assertSolves(int[] sudoku, int[] solution) {
+        for (int field = 0; field < 81; field++)
+            assertTrue(sudoku[field] == 0 || sudoku[field] == solution[field], "given at " + field);
+        assertEquals(1, new SudokuSolver().countSolutions(solution, 2));
+    }
+}
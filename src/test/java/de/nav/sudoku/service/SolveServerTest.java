@@ -0,0 +1,53 @@
+package de.nav.sudoku.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SolveServerTest {
+
+    private static final String SOLVABLE =
+            "010004608900000000046970000624000100700416800090250467103805000572000900400000003";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void solveSkipsEmptyLines() throws Exception {
+        HttpResponse<String> response = post("/solve", SOLVABLE + "\n\n");
+
+        assertEquals(200, response.statusCode());
+        assertEquals(82, response.body().length());
+    }
+
+    @Test
+    void solveBatchSkipsEmptyLines() throws Exception {
+        HttpResponse<String> response = post("/solve/batch", SOLVABLE + "\n\n" + SOLVABLE + "\n\n");
+
+        assertEquals(200, response.statusCode());
+        String[] lines = response.body().split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals(81, lines[0].length());
+        assertEquals(lines[0], lines[1]);
+    }
+
+    @Test
+    void onlyExactPathsAreServed() throws Exception {
+        for (String path : new String[]{"/solve/", "/solvex", "/solve/batch/more", "/metrics/x", "/"})
+            assertEquals(404, post(path, SOLVABLE + "\n").statusCode(), path);
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        try (SolveService service = new SolveService(2, 16, 16, 1000);
+             SolveServer server = new SolveServer(new InetSocketAddress("localhost", 0), service, 16)) {
+            URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + path);
+            HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+    }
+}
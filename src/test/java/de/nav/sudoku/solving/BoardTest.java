@@ -0,0 +1,77 @@
+package de.nav.sudoku.solving;
+
+import org.junit.jupiter.api.Test;
+
+import static de.nav.sudoku.TestSudokus.fields;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardTest {
+
+    private static final String SUDOKU =
+            "100007090030020008009600500005300900010080002600004000300000010040000007007000300";
+
+    @Test
+    void hintsLeadToTheSolution() {
+        int[] sudoku = fields(SUDOKU);
+        int[] solution = new int[81];
+        assertTrue(new SudokuSolver().solve(sudoku, solution));
+        Board board = new Board(9, sudoku);
+        Board.Hint hint;
+        while ((hint = board.nextHint()) != null) {
+            assertEquals(solution[hint.getRow() * 9 + hint.getColumn()], hint.getNumber(), hint.toString());
+            assertTrue(board.place(hint.getRow(), hint.getColumn(), hint.getNumber()), hint.toString());
+        }
+        assertTrue(board.isSolved());
+    }
+
+    @Test
+    void noHintAfterAWrongMove() {
+        int[] sudoku = fields(SUDOKU);
+        int[] solution = new int[81];
+        assertTrue(new SudokuSolver().solve(sudoku, solution));
+        Board board = new Board(9, sudoku);
+        int wrongMoves = 0;
+        for (int field = 0; field < 81; field++) {
+            if (sudoku[field] != 0)
+                continue;
+            for (int number = 1; number <= 9; number++) {
+                if (number == solution[field] || !board.place(field / 9, field % 9, number))
+                    continue;
+                wrongMoves++;
+                assertNull(board.nextHint(), "Hint after " + number + " in field " + field);
+                assertTrue(board.undo());
+                assertNotNull(board.nextHint());
+            }
+        }
+        assertTrue(wrongMoves > 0);
+    }
+
+    @Test
+    void rejectsFieldsOffTheBoard() {
+        Board board = new Board(9, fields(SUDOKU));
+        for (int[] field : new int[][]{{0, 9}, {9, 0}, {-1, 0}, {0, -1}}) {
+            int row = field[0];
+            int col = field[1];
+            assertThrows(IllegalArgumentException.class, () -> board.get(row, col));
+            assertThrows(IllegalArgumentException.class, () -> board.isGiven(row, col));
+            assertThrows(IllegalArgumentException.class, () -> board.candidates(row, col));
+            assertThrows(IllegalArgumentException.class, () -> board.place(row, col, 1));
+            assertThrows(IllegalArgumentException.class, () -> board.clear(row, col));
+        }
+        assertEquals(0, board.get(1, 0));
+    }
+
+    @Test
+    void rejectsNumbersOutOfRange() {
+        Board board = new Board(9, fields(SUDOKU));
+        assertThrows(IllegalArgumentException.class, () -> board.place(0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> board.place(0, 1, 10));
+        assertThrows(IllegalArgumentException.class, () -> board.place(0, 1, -1));
+        assertEquals(0, board.get(0, 1));
+        assertTrue(board.place(0, 1, 2));
+    }
+}
@@ -0,0 +1,92 @@
+package de.nav.sudoku.solving;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+
+import static de.nav.sudoku.TestSudokus.fields;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SudokuSolverTest {
+
+    /**
+     * Sudokus that need search, several levels deep.
+     */
+    private static final String[] HARD = {
+            "100007090030020008009600500005300900010080002600004000300000010040000007007000300",
+            "951000000000059000070400000006200400400800109000000700020008001000900006800027900",
+            "020003000601000000030150700308010670007000008006500900000900060090000300803071000",
+            "000800025000100009470009000000090010609201000708400900280000000006000400000083060"
+    };
+
+    @Test
+    void budgetedSolveAfterParallelSolve() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SudokuSolver solver = new SudokuSolver(pool, 2);
+            int[] solution = new int[81];
+            for (String line : HARD) {
+                int[] sudoku = fields(line);
+                assertTrue(solver.solve(sudoku, solution), line);
+                SolveResult result = solver.solve(sudoku, solution, Duration.ofSeconds(10));
+                assertEquals(SolveResult.Status.SOLVED, result.getStatus(), line);
+                assertTrue(result.getNodes() > 0, line);
+                assertTrue(solver.solve(sudoku, solution, Long.MAX_VALUE).isSolved(), line);
+                assertEquals(1, solver.countSolutions(sudoku, 2), line);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelSolvesReuseWorkerSolvers() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SudokuSolver parallel = new SudokuSolver(pool, 3);
+            SudokuSolver sequential = new SudokuSolver();
+            int[] solution = new int[81];
+            int[] expected = new int[81];
+            for (int round = 0; round < 5; round++) {
+                for (String line : HARD) {
+                    int[] sudoku = fields(line);
+                    assertTrue(sequential.solve(sudoku, expected), line);
+                    assertTrue(parallel.solve(sudoku, solution), line);
+                    assertArrayEquals(expected, solution, line);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void nodeBudgetIsExceeded() {
+        SudokuSolver solver = new SudokuSolver();
+        int[] sudoku = fields(HARD[0]);
+        int[] solution = new int[81];
+        SolveResult result = solver.solve(sudoku, solution, 1);
+        assertEquals(SolveResult.Status.BUDGET_EXCEEDED, result.getStatus());
+        assertEquals(1, result.getNodes());
+        assertTrue(solver.solve(sudoku, solution));
+    }
+
+    @Test
+    void everyEngineKeepsToTheNodeBudget() {
+        int[] solution = new int[81];
+        for (Solver solver : new Solver[]{new SudokuSolver(), new DancingLinksSolver(), new AdaptiveSolver()}) {
+            for (String line : HARD) {
+                int[] sudoku = fields(line);
+                SolveResult unlimited = solver.solve(sudoku, solution, null, Long.MAX_VALUE);
+                assertEquals(SolveResult.Status.SOLVED, unlimited.getStatus(), line);
+                assertEquals(SolveResult.Status.BUDGET_EXCEEDED, solver.solve(sudoku, solution, 0).getStatus(), line);
+                assertEquals(SolveResult.Status.BUDGET_EXCEEDED,
+                        solver.solve(sudoku, solution, Duration.ofNanos(-1)).getStatus(), line);
+                assertTrue(solver.solve(sudoku, solution), line);
+            }
+        }
+    }
+}
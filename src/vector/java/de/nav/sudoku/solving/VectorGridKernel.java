@@ -0,0 +1,141 @@
+package de.nav.sudoku.solving;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link GridKernel} on the Vector API, only ever loaded by {@link GridKernel#INSTANCE} once it found the module.
+ *
+ * Operations on all fields go over them a vector at a time. Validity is checked for all groups of a kind
+ * (rows, columns or boxes) at once: each lane holds one group, and the fields of the groups are gathered
+ * position by position. A group is valid if the sum of the bits of its numbers equals their bitwise or,
+ * which only holds if no bit occurs twice.
+ *
+ * Vectors are kept at 256 bits even where wider ones are available: C2 of JDK 17 compiles the 512 bit gathers
+ * into code that crashes now and then.
+ */
+class VectorGridKernel implements GridKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_256;
+    private static final int LANES = SPECIES.length();
+    private static final IntVector ONE = IntVector.broadcast(SPECIES, 1);
+
+    /**
+     * Per box size from 2 on and kind of group: the first field of each group, padded to whole vectors by
+     * repeating the first group.
+     */
+    private final int[][][] groupStarts = new int[4][3][];
+    /**
+     * Per box size from 2 on and kind of group: the offsets of the fields of a group from its first field.
+     */
+    private final int[][][] fieldOffsets = new int[4][3][];
+
+    /**
+     * @throws UnsupportedOperationException if the vectors of this machine are narrower than 256 bits
+     */
+    VectorGridKernel() {
+        if (IntVector.SPECIES_PREFERRED.vectorBitSize() < SPECIES.vectorBitSize())
+            throw new UnsupportedOperationException(
+                    "Vectors of " + IntVector.SPECIES_PREFERRED.vectorBitSize() + " bits are too narrow");
+        for (int boxSize = 2; boxSize <= 5; boxSize++) {
+            int size = boxSize * boxSize;
+            int[][] starts = groupStarts[boxSize - 2];
+            int[][] offsets = fieldOffsets[boxSize - 2];
+            for (int kind = 0; kind < 3; kind++) {
+                starts[kind] = new int[(size + LANES - 1) / LANES * LANES];
+                offsets[kind] = new int[size];
+            }
+            for (int i = 0; i < starts[0].length; i++) {
+                int group = i < size ? i : 0;
+                starts[0][i] = group * size;
+                starts[1][i] = group;
+                starts[2][i] = (group / boxSize) * boxSize * size + (group % boxSize) * boxSize;
+            }
+            for (int i = 0; i < size; i++) {
+                offsets[0][i] = i;
+                offsets[1][i] = i * size;
+                offsets[2][i] = (i / boxSize) * size + i % boxSize;
+            }
+        }
+    }
+
+    @Override
+    public boolean isSolved(int[] solution) {
+        int field = 0;
+        for (int bound = SPECIES.loopBound(solution.length); field < bound; field += LANES)
+            if (IntVector.fromArray(SPECIES, solution, field).eq(0).anyTrue())
+                return false;
+        for (; field < solution.length; field++)
+            if (solution[field] == 0)
+                return false;
+        return true;
+    }
+
+    @Override
+    public boolean hasNoDeadEnds(int[] solution, int[] metaValues) {
+        int field = 0;
+        for (int bound = SPECIES.loopBound(solution.length); field < bound; field += LANES) {
+            VectorMask<Integer> empty = IntVector.fromArray(SPECIES, solution, field).eq(0);
+            if (empty.and(IntVector.fromArray(SPECIES, metaValues, field).eq(0)).anyTrue())
+                return false;
+        }
+        for (; field < solution.length; field++)
+            if (solution[field] == 0 && metaValues[field] == 0)
+                return false;
+        return true;
+    }
+
+    @Override
+    public boolean isValid(SudokuLayout layout, int[] solution) {
+        int[][] starts = groupStarts[layout.boxSize - 2];
+        int[][] offsets = fieldOffsets[layout.boxSize - 2];
+        for (int kind = 0; kind < 3; kind++)
+            for (int first = 0; first < starts[kind].length; first += LANES) {
+                IntVector or = IntVector.zero(SPECIES);
+                IntVector sum = or;
+                for (int offset : offsets[kind]) {
+                    IntVector numbers = IntVector.fromArray(SPECIES, solution, offset, starts[kind], first);
+                    IntVector bits = ONE.lanewise(VectorOperators.LSHL, numbers.sub(1)).blend(0, numbers.eq(0));
+                    or = or.or(bits);
+                    sum = sum.add(bits);
+                }
+                if (or.compare(VectorOperators.NE, sum).anyTrue())
+                    return false;
+            }
+        return true;
+    }
+
+    @Override
+    public int collectSingles(int[] solution, int[] metaValues, int[] singles) {
+        int count = 0;
+        int field = 0;
+        for (int bound = SPECIES.loopBound(solution.length); field < bound; field += LANES) {
+            IntVector metaValue = IntVector.fromArray(SPECIES, metaValues, field);
+            VectorMask<Integer> single = IntVector.fromArray(SPECIES, solution, field).eq(0)
+                    .and(metaValue.compare(VectorOperators.NE, 0))
+                    .and(metaValue.and(metaValue.sub(1)).eq(0));
+            if (!single.anyTrue())
+                continue;
+            for (long lanes = single.toLong(); lanes != 0; lanes &= lanes - 1)
+                singles[count++] = field + Long.numberOfTrailingZeros(lanes);
+        }
+        for (; field < solution.length; field++) {
+            int metaValue = metaValues[field];
+            if (solution[field] == 0 && metaValue != 0 && (metaValue & (metaValue - 1)) == 0)
+                singles[count++] = field;
+        }
+        return count;
+    }
+
+    /**
+     * Stays a plain loop: the lists of fields are short and scattered, a gather and scatter of them
+     * take longer than the loop.
+     */
+    @Override
+    public void removeBitsFromFields(int[] metaValues, int[] fields, int bits) {
+        for (int field : fields)
+            metaValues[field] &= ~bits;
+    }
+}